@@ -0,0 +1,215 @@
+package edu.ncsu.csc216.app_manager.model.manager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import edu.ncsu.csc216.app_manager.model.application.Application;
+import edu.ncsu.csc216.app_manager.model.application.ReviewerDictionary;
+
+/**
+ * AppAttributeIndex groups applications by type, state, resolution and reviewer, so 
+ * that the applications with one value of an attribute can be found without scanning 
+ * every application. Each group is an AppBitmap of application ids, so groups can be
+ * intersected and united cheaply and are always in id order. Reviewer groups are kept
+ * by reviewer code from the list's ReviewerDictionary. The index has to be told about 
+ * every application that is added, removed, or changed by a command.
+ */
+class AppAttributeIndex {
+
+	/** Applications by id, used to turn ids back into applications */
+	private final AppIndex apps;
+
+	/** Ids by type */
+	private final HashMap<String, AppBitmap> byType = new HashMap<String, AppBitmap>();
+
+	/** Ids by state name */
+	private final HashMap<String, AppBitmap> byState = new HashMap<String, AppBitmap>();
+
+	/** Ids by resolution, for applications that have one */
+	private final HashMap<String, AppBitmap> byResolution = new HashMap<String, AppBitmap>();
+
+	/** Ids by reviewer code, for applications that have a reviewer; entries may be null */
+	private final ArrayList<AppBitmap> byReviewer = new ArrayList<AppBitmap>();
+
+	/** Codes of the reviewer ids */
+	private final ReviewerDictionary reviewers;
+
+	/**
+	 * Constructs an empty AppAttributeIndex
+	 * @param apps applications by id
+	 * @param reviewers codes of the reviewer ids
+	 */
+	AppAttributeIndex(AppIndex apps, ReviewerDictionary reviewers) {
+		this.apps = apps;
+		this.reviewers = reviewers;
+	}
+
+	/**
+	 * Adds an application under its current attributes
+	 * @param a application to add
+	 */
+	void add(Application a) {
+		add(byType, a.getAppType(), a);
+		add(byState, a.getStateName(), a);
+		add(byResolution, a.getResolution(), a);
+		int code = reviewers.code(a.getReviewer());
+		if(code != ReviewerDictionary.NONE) {
+			while(byReviewer.size() <= code) {
+				byReviewer.add(null);
+			}
+			if(byReviewer.get(code) == null) {
+				byReviewer.set(code, new AppBitmap());
+			}
+			byReviewer.get(code).add(a.getAppId());
+		}
+	}
+
+	/**
+	 * Removes an application from under its current attributes
+	 * @param a application to remove
+	 */
+	void remove(Application a) {
+		remove(a.getAppId(), a.getAppType(), a.getStateName(), a.getResolution(), a.getReviewer());
+	}
+
+	/**
+	 * Removes an application from under the attributes it had before it was changed
+	 * @param id of the application
+	 * @param type of the application before the change
+	 * @param state name of the state before the change
+	 * @param resolution of the application before the change, or null
+	 * @param reviewer of the application before the change, or null
+	 */
+	void remove(int id, String type, String state, String resolution, String reviewer) {
+		remove(byType, type, id);
+		remove(byState, state, id);
+		remove(byResolution, resolution, id);
+		AppBitmap ids = reviewerIds(reviewers.find(reviewer));
+		if(ids != null) {
+			ids.remove(id);
+		}
+	}
+
+	/**
+	 * Compresses every group once a bulk load is finished
+	 */
+	void optimize() {
+		optimize(byType);
+		optimize(byState);
+		optimize(byResolution);
+		for(AppBitmap ids : byReviewer) {
+			if(ids != null) {
+				ids.runOptimize();
+			}
+		}
+	}
+
+	/**
+	 * Returns the ids of the applications of a type. The set must not be changed.
+	 * @param type of application
+	 * @return the ids, possibly empty
+	 */
+	AppBitmap type(String type) {
+		return lookup(byType, type);
+	}
+
+	/**
+	 * Returns the ids of the applications in a state. The set must not be changed.
+	 * @param state name of the state
+	 * @return the ids, possibly empty
+	 */
+	AppBitmap state(String state) {
+		return lookup(byState, state);
+	}
+
+	/**
+	 * Returns the ids of the applications with a resolution. The set must not be changed.
+	 * @param resolution of application
+	 * @return the ids, possibly empty
+	 */
+	AppBitmap resolution(String resolution) {
+		return lookup(byResolution, resolution);
+	}
+
+	/**
+	 * Returns the ids of the applications with a reviewer. The set must not be changed.
+	 * @param reviewer id of the reviewer
+	 * @return the ids, possibly empty
+	 */
+	AppBitmap reviewer(String reviewer) {
+		AppBitmap ids = reviewerIds(reviewers.find(reviewer));
+		return ids == null ? new AppBitmap() : ids;
+	}
+	
+	/**
+	 * Returns the ids of the applications with a reviewer code
+	 * @param code of the reviewer, or a negative number for an unknown reviewer
+	 * @return the ids, or null if no application has had the reviewer
+	 */
+	private AppBitmap reviewerIds(int code) {
+		if(code <= ReviewerDictionary.NONE || code >= byReviewer.size()) {
+			return null;
+		}
+		return byReviewer.get(code);
+	}
+
+	/**
+	 * Returns the applications with the given ids, in id order
+	 * @param ids of the applications
+	 * @return a new list of the applications
+	 */
+	List<Application> select(AppBitmap ids) {
+		ArrayList<Application> list = new ArrayList<Application>(ids.cardinality());
+		ids.forEach(id -> list.add(apps.get(id)));
+		return list;
+	}
+
+	/**
+	 * Adds an application's id under a key, unless the key is null
+	 * @param map to add to
+	 * @param key of the application
+	 * @param a application to add
+	 */
+	private static void add(HashMap<String, AppBitmap> map, String key, Application a) {
+		if(key != null) {
+			map.computeIfAbsent(key, k -> new AppBitmap()).add(a.getAppId());
+		}
+	}
+
+	/**
+	 * Removes an application's id from under a key, unless the key is null
+	 * @param map to remove from
+	 * @param key of the application
+	 * @param id of the application to remove
+	 */
+	private static void remove(HashMap<String, AppBitmap> map, String key, int id) {
+		if(key != null) {
+			AppBitmap ids = map.get(key);
+			if(ids != null) {
+				ids.remove(id);
+			}
+		}
+	}
+
+	/**
+	 * Returns the ids under a key
+	 * @param map to look in
+	 * @param key to look up
+	 * @return the ids, or an empty set
+	 */
+	private static AppBitmap lookup(HashMap<String, AppBitmap> map, String key) {
+		AppBitmap ids = map.get(key);
+		return ids == null ? new AppBitmap() : ids;
+	}
+
+	/**
+	 * Compresses every set in a map
+	 * @param map of sets
+	 */
+	private static void optimize(HashMap<String, AppBitmap> map) {
+		for(AppBitmap ids : map.values()) {
+			ids.runOptimize();
+		}
+	}
+}
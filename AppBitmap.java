@@ -0,0 +1,818 @@
+package edu.ncsu.csc216.app_manager.model.manager;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * AppBitmap is a compressed set of application ids in the style of a Roaring bitmap.
+ * Ids are split into their high and low 16 bits. Each distinct high half has a container
+ * for its low halves: a sorted array while it holds at most 4096 values, a 1024 word
+ * bitmap above that, or a list of runs when runOptimize finds the ids are mostly
+ * consecutive. Intersections and unions work container by container and never expand
+ * the ids into a list.
+ */
+class AppBitmap {
+
+	/** Most values an array container holds before it becomes a bitmap container */
+	private static final int ARRAY_MAX = 4096;
+
+	/** Number of words in a bitmap container */
+	private static final int WORDS = 1024;
+
+	/** High halves of the ids, in increasing order */
+	private char[] keys;
+
+	/** Containers for the low halves, in the same order as the keys */
+	private Container[] containers;
+
+	/** Number of containers */
+	private int size;
+
+	/**
+	 * Constructs an empty AppBitmap
+	 */
+	AppBitmap() {
+		this(4);
+	}
+
+	/**
+	 * Constructs an empty AppBitmap with room for the given number of containers
+	 * @param capacity number of containers
+	 */
+	private AppBitmap(int capacity) {
+		keys = new char[Math.max(capacity, 1)];
+		containers = new Container[Math.max(capacity, 1)];
+	}
+
+	/**
+	 * Adds an id to the set
+	 * @param id to add
+	 */
+	void add(int id) {
+		char high = (char) (id >>> 16);
+		int i = find(high);
+		if(i >= 0) {
+			containers[i] = containers[i].add((char) id);
+		}
+		else {
+			insert(-i - 1, high, new ArrayContainer().add((char) id));
+		}
+	}
+
+	/**
+	 * Removes an id from the set
+	 * @param id to remove
+	 */
+	void remove(int id) {
+		int i = find((char) (id >>> 16));
+		if(i >= 0) {
+			Container c = containers[i].remove((char) id);
+			if(c.cardinality() == 0) {
+				System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+				System.arraycopy(containers, i + 1, containers, i, size - i - 1);
+				size--;
+				containers[size] = null;
+			}
+			else {
+				containers[i] = c;
+			}
+		}
+	}
+
+	/**
+	 * Returns true if the id is in the set
+	 * @param id to look for
+	 * @return true if the id is in the set
+	 */
+	boolean contains(int id) {
+		int i = find((char) (id >>> 16));
+		return i >= 0 && containers[i].contains((char) id);
+	}
+
+	/**
+	 * Returns the number of ids in the set
+	 * @return the number of ids
+	 */
+	int cardinality() {
+		int count = 0;
+		for(int i = 0; i < size; i++) {
+			count += containers[i].cardinality();
+		}
+		return count;
+	}
+
+	/**
+	 * Returns true if the set has no ids
+	 * @return true if the set is empty
+	 */
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns the ids that are in both this set and the other set
+	 * @param other set to intersect with
+	 * @return a new set with the intersection
+	 */
+	AppBitmap and(AppBitmap other) {
+		AppBitmap result = new AppBitmap(Math.min(size, other.size));
+		int i = 0;
+		int j = 0;
+		while(i < size && j < other.size) {
+			if(keys[i] < other.keys[j]) {
+				i++;
+			}
+			else if(keys[i] > other.keys[j]) {
+				j++;
+			}
+			else {
+				Container c = containers[i].and(other.containers[j]);
+				if(c.cardinality() > 0) {
+					result.append(keys[i], c);
+				}
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the ids that are in this set, the other set, or both
+	 * @param other set to unite with
+	 * @return a new set with the union
+	 */
+	AppBitmap or(AppBitmap other) {
+		AppBitmap result = new AppBitmap(size + other.size);
+		int i = 0;
+		int j = 0;
+		while(i < size || j < other.size) {
+			if(j == other.size || (i < size && keys[i] < other.keys[j])) {
+				result.append(keys[i], containers[i].share());
+				i++;
+			}
+			else if(i == size || keys[i] > other.keys[j]) {
+				result.append(other.keys[j], other.containers[j].share());
+				j++;
+			}
+			else {
+				result.append(keys[i], containers[i].or(other.containers[j]));
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Passes every id in the set to the action, in increasing order
+	 * @param action to perform on each id
+	 */
+	void forEach(IntConsumer action) {
+		for(int i = 0; i < size; i++) {
+			containers[i].forEach(keys[i] << 16, action);
+		}
+	}
+
+	/**
+	 * Switches each container to whichever representation is smallest, using runs
+	 * where the ids are mostly consecutive
+	 */
+	void runOptimize() {
+		for(int i = 0; i < size; i++) {
+			containers[i] = containers[i].optimize();
+		}
+	}
+
+	/**
+	 * Returns the position of a high half in the keys
+	 * @param high half of an id
+	 * @return the position, or -(insertion point) - 1 if it is not there
+	 */
+	private int find(char high) {
+		//ids are usually added in increasing order, so the last key is checked first
+		if(size > 0 && keys[size - 1] == high) {
+			return size - 1;
+		}
+		return Arrays.binarySearch(keys, 0, size, high);
+	}
+
+	/**
+	 * Inserts a container at the given position
+	 * @param pos position to insert at
+	 * @param high half of the ids in the container
+	 * @param c container to insert
+	 */
+	private void insert(int pos, char high, Container c) {
+		if(size == keys.length) {
+			keys = Arrays.copyOf(keys, size * 2);
+			containers = Arrays.copyOf(containers, size * 2);
+		}
+		System.arraycopy(keys, pos, keys, pos + 1, size - pos);
+		System.arraycopy(containers, pos, containers, pos + 1, size - pos);
+		keys[pos] = high;
+		containers[pos] = c;
+		size++;
+	}
+
+	/**
+	 * Adds a container after the last one
+	 * @param high half of the ids in the container
+	 * @param c container to add, which must not be used by another set
+	 */
+	private void append(char high, Container c) {
+		insert(size, high, c);
+	}
+
+	/**
+	 * Set of the low halves of ids that share a high half
+	 */
+	private abstract static class Container {
+
+		/**
+		 * Adds a value, returning the container that holds the result
+		 * @param v value to add
+		 * @return this container or its replacement
+		 */
+		abstract Container add(char v);
+
+		/**
+		 * Removes a value, returning the container that holds the result
+		 * @param v value to remove
+		 * @return this container or its replacement
+		 */
+		abstract Container remove(char v);
+
+		/**
+		 * Returns true if the value is in the container
+		 * @param v value to look for
+		 * @return true if the value is in the container
+		 */
+		abstract boolean contains(char v);
+
+		/**
+		 * Returns the number of values in the container
+		 * @return the number of values
+		 */
+		abstract int cardinality();
+
+		/**
+		 * Passes every value, combined with the high half, to the action in increasing order
+		 * @param high half of the ids, already shifted
+		 * @param action to perform on each id
+		 */
+		abstract void forEach(int high, IntConsumer action);
+
+		/**
+		 * Returns the values as a bitmap container
+		 * @return a bitmap container with the same values
+		 */
+		abstract BitmapContainer toBitmap();
+
+		/**
+		 * Returns a container with the same values that is safe to change without
+		 * changing this one
+		 * @return a copy of the container
+		 */
+		abstract Container share();
+
+		/**
+		 * Returns the number of runs of consecutive values
+		 * @return the number of runs
+		 */
+		abstract int runCount();
+
+		/**
+		 * Returns the values in both containers
+		 * @param other container to intersect with
+		 * @return a new container with the intersection
+		 */
+		Container and(Container other) {
+			if(this instanceof ArrayContainer) {
+				return ((ArrayContainer) this).filter(other);
+			}
+			if(other instanceof ArrayContainer) {
+				return ((ArrayContainer) other).filter(this);
+			}
+			long[] a = toBitmap().words;
+			long[] b = other.toBitmap().words;
+			long[] words = new long[WORDS];
+			for(int i = 0; i < WORDS; i++) {
+				words[i] = a[i] & b[i];
+			}
+			return new BitmapContainer(words).normalize();
+		}
+
+		/**
+		 * Returns the values in either container
+		 * @param other container to unite with
+		 * @return a new container with the union
+		 */
+		Container or(Container other) {
+			if(this instanceof ArrayContainer && other instanceof ArrayContainer
+					&& cardinality() + other.cardinality() <= ARRAY_MAX) {
+				return ((ArrayContainer) this).merge((ArrayContainer) other);
+			}
+			long[] a = toBitmap().words;
+			long[] b = other.toBitmap().words;
+			long[] words = new long[WORDS];
+			for(int i = 0; i < WORDS; i++) {
+				words[i] = a[i] | b[i];
+			}
+			return new BitmapContainer(words).normalize();
+		}
+
+		/**
+		 * Returns whichever of an array, bitmap or run container holds the values in the
+		 * least space
+		 * @return the smallest container
+		 */
+		Container optimize() {
+			int card = cardinality();
+			int runs = runCount();
+			int runBytes = 4 * runs;
+			int arrayBytes = card <= ARRAY_MAX ? 2 * card : Integer.MAX_VALUE;
+			int bitmapBytes = WORDS * 8;
+			if(runBytes < arrayBytes && runBytes < bitmapBytes) {
+				return this instanceof RunContainer ? this : RunContainer.of(this, runs);
+			}
+			if(arrayBytes <= bitmapBytes) {
+				return this instanceof ArrayContainer ? this : toBitmap().toArray();
+			}
+			return toBitmap();
+		}
+	}
+
+	/**
+	 * Container holding its values in a sorted array
+	 */
+	private static class ArrayContainer extends Container {
+
+		/** Values in increasing order */
+		private char[] values;
+
+		/** Number of values */
+		private int card;
+
+		/**
+		 * Constructs an empty ArrayContainer
+		 */
+		ArrayContainer() {
+			values = new char[4];
+		}
+
+		/**
+		 * Constructs an ArrayContainer over sorted values
+		 * @param values in increasing order
+		 * @param card number of values
+		 */
+		ArrayContainer(char[] values, int card) {
+			this.values = values;
+			this.card = card;
+		}
+
+		@Override
+		Container add(char v) {
+			int i = Arrays.binarySearch(values, 0, card, v);
+			if(i >= 0) {
+				return this;
+			}
+			if(card == ARRAY_MAX) {
+				return toBitmap().add(v);
+			}
+			i = -i - 1;
+			if(card == values.length) {
+				values = Arrays.copyOf(values, Math.min(card * 2, ARRAY_MAX));
+			}
+			System.arraycopy(values, i, values, i + 1, card - i);
+			values[i] = v;
+			card++;
+			return this;
+		}
+
+		@Override
+		Container remove(char v) {
+			int i = Arrays.binarySearch(values, 0, card, v);
+			if(i >= 0) {
+				System.arraycopy(values, i + 1, values, i, card - i - 1);
+				card--;
+			}
+			return this;
+		}
+
+		@Override
+		boolean contains(char v) {
+			return Arrays.binarySearch(values, 0, card, v) >= 0;
+		}
+
+		@Override
+		int cardinality() {
+			return card;
+		}
+
+		@Override
+		void forEach(int high, IntConsumer action) {
+			for(int i = 0; i < card; i++) {
+				action.accept(high | values[i]);
+			}
+		}
+
+		@Override
+		BitmapContainer toBitmap() {
+			long[] words = new long[WORDS];
+			for(int i = 0; i < card; i++) {
+				words[values[i] >>> 6] |= 1L << values[i];
+			}
+			return new BitmapContainer(words, card);
+		}
+
+		@Override
+		Container share() {
+			return new ArrayContainer(Arrays.copyOf(values, Math.max(card, 1)), card);
+		}
+
+		@Override
+		int runCount() {
+			int runs = 0;
+			for(int i = 0; i < card; i++) {
+				if(i == 0 || values[i] != values[i - 1] + 1) {
+					runs++;
+				}
+			}
+			return runs;
+		}
+
+		/**
+		 * Returns the values of this container that are also in the other container
+		 * @param other container to check against
+		 * @return a new array container with the intersection
+		 */
+		ArrayContainer filter(Container other) {
+			char[] result = new char[Math.max(card, 1)];
+			int count = 0;
+			if(other instanceof ArrayContainer) {
+				ArrayContainer o = (ArrayContainer) other;
+				int j = 0;
+				for(int i = 0; i < card && j < o.card; ) {
+					if(values[i] < o.values[j]) {
+						i++;
+					}
+					else if(values[i] > o.values[j]) {
+						j++;
+					}
+					else {
+						result[count++] = values[i];
+						i++;
+						j++;
+					}
+				}
+			}
+			else {
+				for(int i = 0; i < card; i++) {
+					if(other.contains(values[i])) {
+						result[count++] = values[i];
+					}
+				}
+			}
+			return new ArrayContainer(result, count);
+		}
+
+		/**
+		 * Returns the values in either array container
+		 * @param other container to merge with
+		 * @return a new array container with the union
+		 */
+		ArrayContainer merge(ArrayContainer other) {
+			char[] result = new char[Math.max(card + other.card, 1)];
+			int count = 0;
+			int i = 0;
+			int j = 0;
+			while(i < card || j < other.card) {
+				if(j == other.card || (i < card && values[i] < other.values[j])) {
+					result[count++] = values[i++];
+				}
+				else if(i == card || values[i] > other.values[j]) {
+					result[count++] = other.values[j++];
+				}
+				else {
+					result[count++] = values[i++];
+					j++;
+				}
+			}
+			return new ArrayContainer(result, count);
+		}
+	}
+
+	/**
+	 * Container holding its values as bits in 1024 words
+	 */
+	private static class BitmapContainer extends Container {
+
+		/** One bit per possible value */
+		private final long[] words;
+
+		/** Number of values */
+		private int card;
+
+		/**
+		 * Constructs a BitmapContainer over the given words, counting the bits
+		 * @param words bits of the values
+		 */
+		BitmapContainer(long[] words) {
+			this.words = words;
+			for(int i = 0; i < WORDS; i++) {
+				card += Long.bitCount(words[i]);
+			}
+		}
+
+		/**
+		 * Constructs a BitmapContainer over the given words
+		 * @param words bits of the values
+		 * @param card number of bits set
+		 */
+		BitmapContainer(long[] words, int card) {
+			this.words = words;
+			this.card = card;
+		}
+
+		@Override
+		Container add(char v) {
+			long bit = 1L << v;
+			if((words[v >>> 6] & bit) == 0) {
+				words[v >>> 6] |= bit;
+				card++;
+			}
+			return this;
+		}
+
+		@Override
+		Container remove(char v) {
+			long bit = 1L << v;
+			if((words[v >>> 6] & bit) != 0) {
+				words[v >>> 6] &= ~bit;
+				card--;
+			}
+			return normalize();
+		}
+
+		@Override
+		boolean contains(char v) {
+			return (words[v >>> 6] & (1L << v)) != 0;
+		}
+
+		@Override
+		int cardinality() {
+			return card;
+		}
+
+		@Override
+		void forEach(int high, IntConsumer action) {
+			for(int i = 0; i < WORDS; i++) {
+				long word = words[i];
+				while(word != 0) {
+					action.accept(high | (i << 6) | Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+		}
+
+		@Override
+		BitmapContainer toBitmap() {
+			return this;
+		}
+
+		@Override
+		Container share() {
+			return new BitmapContainer(words.clone(), card);
+		}
+
+		@Override
+		int runCount() {
+			int runs = 0;
+			for(int i = 0; i < WORDS; i++) {
+				long word = words[i];
+				//counts the bits that start a run: set, with the bit below clear
+				long previous = i == 0 ? 0 : words[i - 1] >>> 63;
+				runs += Long.bitCount(word & ~((word << 1) | previous));
+			}
+			return runs;
+		}
+
+		/**
+		 * Returns an array container if the values fit in one, or this container
+		 * @return the container to use for these values
+		 */
+		Container normalize() {
+			return card <= ARRAY_MAX ? toArray() : this;
+		}
+
+		/**
+		 * Returns the values as an array container
+		 * @return an array container with the same values
+		 */
+		ArrayContainer toArray() {
+			char[] values = new char[Math.max(card, 1)];
+			int count = 0;
+			for(int i = 0; i < WORDS; i++) {
+				long word = words[i];
+				while(word != 0) {
+					values[count++] = (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+			return new ArrayContainer(values, count);
+		}
+	}
+
+	/**
+	 * Container holding its values as runs of consecutive values
+	 */
+	private static class RunContainer extends Container {
+
+		/** First value of each run, in increasing order */
+		private char[] starts;
+
+		/** Number of values in each run, minus one */
+		private char[] lengths;
+
+		/** Number of runs */
+		private int runs;
+
+		/** Number of values */
+		private int card;
+
+		/**
+		 * Constructs a RunContainer
+		 * @param starts first value of each run
+		 * @param lengths number of values in each run, minus one
+		 * @param runs number of runs
+		 */
+		RunContainer(char[] starts, char[] lengths, int runs) {
+			this.starts = starts;
+			this.lengths = lengths;
+			this.runs = runs;
+			int count = 0;
+			for(int i = 0; i < runs; i++) {
+				count += lengths[i] + 1;
+			}
+			card = count;
+		}
+
+		/**
+		 * Returns a RunContainer with the same values as another container
+		 * @param c container to copy
+		 * @param runs number of runs in the container
+		 * @return the run container
+		 */
+		static RunContainer of(Container c, int runs) {
+			char[] starts = new char[Math.max(runs, 1)];
+			char[] lengths = new char[Math.max(runs, 1)];
+			int[] count = new int[1];
+			int[] last = { -2 };
+			c.forEach(0, v -> {
+				if(v != last[0] + 1) {
+					starts[count[0]++] = (char) v;
+				}
+				else {
+					lengths[count[0] - 1]++;
+				}
+				last[0] = v;
+			});
+			return new RunContainer(starts, lengths, count[0]);
+		}
+
+		@Override
+		Container add(char v) {
+			int i = Arrays.binarySearch(starts, 0, runs, v);
+			if(i >= 0) {
+				return this;
+			}
+			//i becomes the run starting before v, or -1
+			i = -i - 2;
+			if(i >= 0 && v <= starts[i] + lengths[i]) {
+				return this;
+			}
+			boolean joinsPrevious = i >= 0 && starts[i] + lengths[i] + 1 == v;
+			boolean joinsNext = i + 1 < runs && starts[i + 1] == v + 1;
+			if(joinsPrevious && joinsNext) {
+				lengths[i] = (char) (lengths[i] + lengths[i + 1] + 2);
+				removeRun(i + 1);
+			}
+			else if(joinsPrevious) {
+				lengths[i]++;
+			}
+			else if(joinsNext) {
+				starts[i + 1] = v;
+				lengths[i + 1]++;
+			}
+			else {
+				insertRun(i + 1, v, 0);
+			}
+			card++;
+			return optimize();
+		}
+
+		@Override
+		Container remove(char v) {
+			int i = Arrays.binarySearch(starts, 0, runs, v);
+			if(i < 0) {
+				i = -i - 2;
+				if(i < 0 || v > starts[i] + lengths[i]) {
+					return this;
+				}
+			}
+			int end = starts[i] + lengths[i];
+			if(lengths[i] == 0) {
+				removeRun(i);
+			}
+			else if(v == starts[i]) {
+				starts[i]++;
+				lengths[i]--;
+			}
+			else if(v == end) {
+				lengths[i]--;
+			}
+			else {
+				lengths[i] = (char) (v - 1 - starts[i]);
+				insertRun(i + 1, (char) (v + 1), end - v - 1);
+			}
+			card--;
+			return optimize();
+		}
+
+		@Override
+		boolean contains(char v) {
+			int i = Arrays.binarySearch(starts, 0, runs, v);
+			if(i >= 0) {
+				return true;
+			}
+			i = -i - 2;
+			return i >= 0 && v <= starts[i] + lengths[i];
+		}
+
+		@Override
+		int cardinality() {
+			return card;
+		}
+
+		@Override
+		void forEach(int high, IntConsumer action) {
+			for(int i = 0; i < runs; i++) {
+				int end = starts[i] + lengths[i];
+				for(int v = starts[i]; v <= end; v++) {
+					action.accept(high | v);
+				}
+			}
+		}
+
+		@Override
+		BitmapContainer toBitmap() {
+			long[] words = new long[WORDS];
+			for(int i = 0; i < runs; i++) {
+				int end = starts[i] + lengths[i];
+				for(int v = starts[i]; v <= end; v++) {
+					words[v >>> 6] |= 1L << v;
+				}
+			}
+			return new BitmapContainer(words, card);
+		}
+
+		@Override
+		Container share() {
+			return new RunContainer(Arrays.copyOf(starts, Math.max(runs, 1)), Arrays.copyOf(lengths, Math.max(runs, 1)), runs);
+		}
+
+		@Override
+		int runCount() {
+			return runs;
+		}
+
+		/**
+		 * Inserts a run at the given position, moving the runs after it along by one
+		 * @param pos position to insert at
+		 * @param start first value of the run
+		 * @param length number of values in the run, minus one
+		 */
+		private void insertRun(int pos, char start, int length) {
+			if(runs == starts.length) {
+				starts = Arrays.copyOf(starts, runs * 2);
+				lengths = Arrays.copyOf(lengths, runs * 2);
+			}
+			System.arraycopy(starts, pos, starts, pos + 1, runs - pos);
+			System.arraycopy(lengths, pos, lengths, pos + 1, runs - pos);
+			starts[pos] = start;
+			lengths[pos] = (char) length;
+			runs++;
+		}
+
+		/**
+		 * Removes the run at the given position, moving the runs after it back by one
+		 * @param pos position of the run
+		 */
+		private void removeRun(int pos) {
+			System.arraycopy(starts, pos + 1, starts, pos, runs - pos - 1);
+			System.arraycopy(lengths, pos + 1, lengths, pos, runs - pos - 1);
+			runs--;
+		}
+	}
+}
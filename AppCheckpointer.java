@@ -0,0 +1,94 @@
+package edu.ncsu.csc216.app_manager.model.manager;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AppCheckpointer checkpoints the journal of an AppManager on a background thread
+ * whenever the journal grows past a size or record count, or a set time has passed
+ * since the last checkpoint. A trigger of 0 is never reached. A checkpoint that fails
+ * does not stop the checks; the failure is kept until a later checkpoint succeeds.
+ */
+class AppCheckpointer {
+
+	/** Longest time between checks of the triggers, in milliseconds */
+	private static final long MAX_POLL_MILLIS = 1000;
+
+	/** Manager whose journal is checkpointed */
+	private final AppManager manager;
+
+	/** Journal size in bytes that triggers a checkpoint */
+	private final long maxJournalBytes;
+
+	/** Number of journal records that triggers a checkpoint */
+	private final long maxJournalRecords;
+
+	/** Time since the last checkpoint, in milliseconds, that triggers a checkpoint */
+	private final long maxMillis;
+
+	/** Thread that checks the triggers and writes the checkpoints */
+	private final ScheduledExecutorService executor;
+
+	/** Failure of the last checkpoint, or null if it succeeded or none has been taken */
+	private volatile RuntimeException lastFailure;
+
+	/**
+	 * Constructs an AppCheckpointer and starts checking its triggers
+	 * @param manager whose journal is checkpointed
+	 * @param maxJournalBytes journal size in bytes that triggers a checkpoint, or 0
+	 * @param maxJournalRecords number of journal records that triggers a checkpoint, or 0
+	 * @param maxMillis time since the last checkpoint that triggers a checkpoint, or 0
+	 * @throws IllegalArgumentException if a trigger is negative or every trigger is 0
+	 */
+	AppCheckpointer(AppManager manager, long maxJournalBytes, long maxJournalRecords, long maxMillis) {
+		if(maxJournalBytes < 0 || maxJournalRecords < 0 || maxMillis < 0 
+				|| maxJournalBytes + maxJournalRecords + maxMillis == 0) {
+			throw new IllegalArgumentException("Invalid checkpoint triggers.");
+		}
+		this.manager = manager;
+		this.maxJournalBytes = maxJournalBytes;
+		this.maxJournalRecords = maxJournalRecords;
+		this.maxMillis = maxMillis;
+		executor = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread t = new Thread(task, "app-checkpointer");
+			t.setDaemon(true);
+			return t;
+		});
+		long poll = maxMillis > 0 ? Math.min(maxMillis, MAX_POLL_MILLIS) : MAX_POLL_MILLIS;
+		executor.scheduleWithFixedDelay(this::poll, poll, poll, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops checking the triggers. A checkpoint that is being written is finished.
+	 */
+	void stop() {
+		executor.shutdown();
+	}
+
+	/**
+	 * Returns the failure of the last checkpoint taken in the background
+	 * @return the exception the checkpoint failed with, or null if it succeeded or none 
+	 * has been taken
+	 */
+	RuntimeException getLastFailure() {
+		return lastFailure;
+	}
+
+	/**
+	 * Checkpoints the journal if any trigger has been reached. A checkpoint that fails
+	 * is tried again at the next check. Every exception is caught, since one escaping 
+	 * would cancel the checks.
+	 */
+	private void poll() {
+		try {
+			if(manager.checkpointDue(maxJournalBytes, maxJournalRecords, maxMillis)) {
+				manager.checkpoint();
+				lastFailure = null;
+			}
+		}
+		catch(RuntimeException e) {
+			lastFailure = e;
+		}
+	}
+}
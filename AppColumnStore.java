@@ -0,0 +1,364 @@
+package edu.ncsu.csc216.app_manager.model.manager;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.ncsu.csc216.app_manager.model.application.Application;
+import edu.ncsu.csc216.app_manager.model.application.ReviewerDictionary;
+import edu.ncsu.csc216.app_manager.model.command.Command.Resolution;
+
+/**
+ * AppColumnStore keeps the fields of the applications in an AppList column by column,
+ * so that listings and counts can be computed by loops over primitive arrays instead
+ * of calls on every Application.
+ *
+ * Each application has a row, and rows are kept in id order, so the row of an id is
+ * found by binary search on the id column. There is an int column of ids, byte columns
+ * of state, type and resolution codes, a BitSet of processed flags, and an int column
+ * of reviewer codes from the list's ReviewerDictionary. Summaries are held in their own
+ * column; notes stay on the Application, which is looked up by id only when needed.
+ * Deleted rows are marked dead and compacted away once they make up half the store.
+ */
+class AppColumnStore {
+
+	/** Smallest number of rows allocated */
+	private static final int MIN_CAPACITY = 16;
+
+	/** State names, indexed by state code */
+	private static final String[] STATES = { Application.REVIEW_NAME, Application.INTERVIEW_NAME,
+			Application.REFCHK_NAME, Application.OFFER_NAME, Application.WAITLIST_NAME, Application.CLOSED_NAME };
+
+	/** Type names, indexed by type code */
+	private static final String[] TYPES = { Application.A_NEW, Application.A_OLD, Application.A_HIRED };
+
+	/** Number of rows in use, including dead rows */
+	private int rows;
+
+	/** Number of dead rows */
+	private int dead;
+
+	/** Application ids, in increasing order */
+	private int[] ids;
+
+	/** State codes */
+	private byte[] states;
+
+	/** Type codes */
+	private byte[] types;
+
+	/** Resolution codes, 0 for none or the resolution ordinal plus one */
+	private byte[] resolutions;
+
+	/** Processed flags */
+	private final BitSet processed = new BitSet();
+
+	/** Dead rows */
+	private final BitSet deadRows = new BitSet();
+
+	/** Reviewer codes, 0 for none */
+	private int[] reviewers;
+
+	/** Summaries */
+	private String[] summaries;
+
+	/** Codes of the reviewer ids */
+	private final ReviewerDictionary reviewerCodes;
+
+	/**
+	 * Constructs an empty AppColumnStore
+	 * @param reviewerCodes codes of the reviewer ids
+	 */
+	AppColumnStore(ReviewerDictionary reviewerCodes) {
+		this.reviewerCodes = reviewerCodes;
+		allocate(MIN_CAPACITY);
+	}
+
+	/**
+	 * Constructs an AppColumnStore holding the given applications
+	 * @param apps applications in increasing id order
+	 * @param reviewerCodes codes of the reviewer ids
+	 */
+	AppColumnStore(List<Application> apps, ReviewerDictionary reviewerCodes) {
+		this.reviewerCodes = reviewerCodes;
+		allocate(Math.max(MIN_CAPACITY, apps.size()));
+		for(int i = 0; i < apps.size(); i++) {
+			append(apps.get(i));
+		}
+	}
+
+	/**
+	 * Adds a row for an application whose id is larger than every id in the store
+	 * @param a application to add
+	 * @throws IllegalArgumentException if the id is not larger than every id in the store
+	 */
+	void append(Application a) {
+		if(rows > 0 && ids[rows - 1] >= a.getAppId()) {
+			throw new IllegalArgumentException("Invalid application id.");
+		}
+		if(rows == ids.length) {
+			grow();
+		}
+		ids[rows] = a.getAppId();
+		summaries[rows] = a.getSummary();
+		write(rows, a);
+		rows++;
+	}
+
+	/**
+	 * Adds a row for an application in id order, moving the rows after it down by one.
+	 * A dead row with the same id is brought back instead.
+	 * @param a application to add
+	 * @throws IllegalArgumentException if the store already has a live row for the id
+	 */
+	void insert(Application a) {
+		int id = a.getAppId();
+		int row = Arrays.binarySearch(ids, 0, rows, id);
+		if(row >= 0) {
+			if(!deadRows.get(row)) {
+				throw new IllegalArgumentException("Invalid application id.");
+			}
+			deadRows.clear(row);
+			dead--;
+		}
+		else {
+			row = -row - 1;
+			if(rows == ids.length) {
+				grow();
+			}
+			int moved = rows - row;
+			System.arraycopy(ids, row, ids, row + 1, moved);
+			System.arraycopy(states, row, states, row + 1, moved);
+			System.arraycopy(types, row, types, row + 1, moved);
+			System.arraycopy(resolutions, row, resolutions, row + 1, moved);
+			System.arraycopy(reviewers, row, reviewers, row + 1, moved);
+			System.arraycopy(summaries, row, summaries, row + 1, moved);
+			for(int r = rows - 1; r >= row; r--) {
+				processed.set(r + 1, processed.get(r));
+				deadRows.set(r + 1, deadRows.get(r));
+			}
+			deadRows.clear(row);
+			ids[row] = id;
+			rows++;
+		}
+		summaries[row] = a.getSummary();
+		write(row, a);
+	}
+
+	/**
+	 * Copies the current state, type, resolution, processed flag and reviewer of an
+	 * application into its row
+	 * @param a application that changed
+	 */
+	void update(Application a) {
+		int row = rowOf(a.getAppId());
+		if(row >= 0) {
+			write(row, a);
+		}
+	}
+
+	/**
+	 * Marks the row of an application as dead
+	 * @param id of the application
+	 */
+	void remove(int id) {
+		int row = rowOf(id);
+		if(row >= 0) {
+			deadRows.set(row);
+			dead++;
+			if(dead > MIN_CAPACITY && dead * 2 > rows) {
+				compact();
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of applications in the store
+	 * @return the number of live rows
+	 */
+	int size() {
+		return rows - dead;
+	}
+
+	/**
+	 * Returns the id, state name, type and summary of every application, in id order
+	 * @return a 2D array with one row per application
+	 */
+	Object[][] toArray() {
+		Object[][] array = new Object[size()][];
+		int n = 0;
+		for(int row = 0; row < rows; row++) {
+			if(!deadRows.get(row)) {
+				array[n++] = toRow(row);
+			}
+		}
+		return array;
+	}
+
+	/**
+	 * Returns the id, state name, type and summary of every application of a type, in
+	 * id order
+	 * @param type name of the type
+	 * @return a 2D array with one row per application of the type
+	 */
+	Object[][] toArrayByType(String type) {
+		int code = indexOf(TYPES, type);
+		if(code < 0) {
+			return new Object[0][0];
+		}
+		int count = 0;
+		for(int row = 0; row < rows; row++) {
+			if(types[row] == code && !deadRows.get(row)) {
+				count++;
+			}
+		}
+		Object[][] array = new Object[count][];
+		int n = 0;
+		for(int row = 0; n < count; row++) {
+			if(types[row] == code && !deadRows.get(row)) {
+				array[n++] = toRow(row);
+			}
+		}
+		return array;
+	}
+
+	/**
+	 * Counts the applications in each state
+	 * @return the number of applications by state name, in state order, with every state present
+	 */
+	Map<String, Integer> countByState() {
+		int[] counts = new int[STATES.length];
+		for(int row = 0; row < rows; row++) {
+			counts[states[row]]++;
+		}
+		for(int row = deadRows.nextSetBit(0); row >= 0; row = deadRows.nextSetBit(row + 1)) {
+			counts[states[row]]--;
+		}
+		LinkedHashMap<String, Integer> map = new LinkedHashMap<String, Integer>();
+		for(int i = 0; i < STATES.length; i++) {
+			map.put(STATES[i], counts[i]);
+		}
+		return map;
+	}
+
+	/**
+	 * Counts the applications assigned to each reviewer
+	 * @return the number of applications by reviewer id, for reviewers with at least one application
+	 */
+	Map<String, Integer> countByReviewer() {
+		int[] counts = new int[reviewerCodes.size()];
+		for(int row = 0; row < rows; row++) {
+			counts[reviewers[row]]++;
+		}
+		for(int row = deadRows.nextSetBit(0); row >= 0; row = deadRows.nextSetBit(row + 1)) {
+			counts[reviewers[row]]--;
+		}
+		LinkedHashMap<String, Integer> map = new LinkedHashMap<String, Integer>();
+		for(int code = 1; code < counts.length; code++) {
+			if(counts[code] > 0) {
+				map.put(reviewerCodes.get(code), counts[code]);
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * Returns the id, state name, type and summary in a row
+	 * @param row to read
+	 * @return the values of the row
+	 */
+	private Object[] toRow(int row) {
+		return new Object[] { ids[row], STATES[states[row]], TYPES[types[row]], summaries[row] };
+	}
+
+	/**
+	 * Writes the changeable fields of an application into a row
+	 * @param row to write
+	 * @param a application to read from
+	 */
+	private void write(int row, Application a) {
+		states[row] = (byte) indexOf(STATES, a.getStateName());
+		types[row] = (byte) a.getAppTypeValue().ordinal();
+		Resolution resolution = a.getResolutionValue();
+		resolutions[row] = (byte) (resolution == null ? 0 : resolution.ordinal() + 1);
+		processed.set(row, a.isProcessed());
+		reviewers[row] = reviewerCodes.code(a.getReviewer());
+	}
+
+	/**
+	 * Finds the live row of an id
+	 * @param id of the application
+	 * @return the row, or -1 if there is no live row for the id
+	 */
+	private int rowOf(int id) {
+		int row = Arrays.binarySearch(ids, 0, rows, id);
+		return row >= 0 && !deadRows.get(row) ? row : -1;
+	}
+
+	/**
+	 * Moves the live rows down over the dead rows
+	 */
+	private void compact() {
+		int n = 0;
+		for(int row = 0; row < rows; row++) {
+			if(!deadRows.get(row)) {
+				ids[n] = ids[row];
+				states[n] = states[row];
+				types[n] = types[row];
+				resolutions[n] = resolutions[row];
+				processed.set(n, processed.get(row));
+				reviewers[n] = reviewers[row];
+				summaries[n] = summaries[row];
+				n++;
+			}
+		}
+		Arrays.fill(summaries, n, rows, null);
+		processed.clear(n, rows);
+		deadRows.clear();
+		rows = n;
+		dead = 0;
+	}
+
+	/**
+	 * Doubles the number of rows allocated
+	 */
+	private void grow() {
+		int capacity = ids.length * 2;
+		ids = Arrays.copyOf(ids, capacity);
+		states = Arrays.copyOf(states, capacity);
+		types = Arrays.copyOf(types, capacity);
+		resolutions = Arrays.copyOf(resolutions, capacity);
+		reviewers = Arrays.copyOf(reviewers, capacity);
+		summaries = Arrays.copyOf(summaries, capacity);
+	}
+
+	/**
+	 * Allocates empty columns
+	 * @param capacity number of rows
+	 */
+	private void allocate(int capacity) {
+		ids = new int[capacity];
+		states = new byte[capacity];
+		types = new byte[capacity];
+		resolutions = new byte[capacity];
+		reviewers = new int[capacity];
+		summaries = new String[capacity];
+	}
+
+	/**
+	 * Returns the position of a name in a table
+	 * @param table of names
+	 * @param name to look up
+	 * @return the index of the name, or -1 if it is not in the table
+	 */
+	private static int indexOf(String[] table, String name) {
+		for(int i = 0; i < table.length; i++) {
+			if(table[i].equals(name)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
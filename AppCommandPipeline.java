@@ -0,0 +1,182 @@
+package edu.ncsu.csc216.app_manager.model.manager;
+
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import edu.ncsu.csc216.app_manager.model.command.Command;
+
+/**
+ * AppCommandPipeline executes commands submitted to an AppManager asynchronously. Each
+ * command goes to one of a fixed set of partitions chosen by application id, and each
+ * partition is drained in order by its own writer on a virtual thread, so the commands
+ * on one application are executed one at a time in the order they were submitted while
+ * commands on applications in different partitions run in parallel. Callers only queue
+ * the command and are handed a future of its outcome; a caller waits only when its
+ * partition's queue is full, which holds back a burst of submissions until the writer
+ * catches up.
+ *
+ * The locks a writer holds while it may block in I/O, the list's stripe and index
+ * locks and the journal's lock, are ReentrantLocks rather than monitors, so a writer
+ * blocked in journal I/O does not pin its carrier thread.
+ */
+class AppCommandPipeline {
+
+	/** Number of partitions; a power of two */
+	private static final int PARTITIONS = 16;
+
+	/** Most commands a writer takes from its queue at once */
+	private static final int DRAIN = 256;
+
+	/** Most commands waiting in each partition */
+	private static final int CAPACITY = 4096;
+
+	/** Queued by close to tell a writer to stop */
+	private static final Submission STOP = new Submission(0, null);
+
+	/** Manager that the commands are executed on */
+	private final AppManager manager;
+
+	/** Queues of the partitions */
+	private final ArrayList<BlockingQueue<Submission>> queues = new ArrayList<BlockingQueue<Submission>>(PARTITIONS);
+
+	/** Writers of the partitions */
+	private final ArrayList<Thread> writers = new ArrayList<Thread>(PARTITIONS);
+
+	/** Held for reading while a command is queued, and for writing while the pipeline is closed */
+	private final ReentrantReadWriteLock closeLock = new ReentrantReadWriteLock();
+
+	/** True once the pipeline has been closed */
+	private boolean closed;
+
+	/**
+	 * Constructs an AppCommandPipeline and starts its writers
+	 * @param manager that the commands are executed on
+	 */
+	AppCommandPipeline(AppManager manager) {
+		this.manager = manager;
+		for(int i = 0; i < PARTITIONS; i++) {
+			BlockingQueue<Submission> queue = new ArrayBlockingQueue<Submission>(CAPACITY);
+			queues.add(queue);
+			writers.add(Thread.ofVirtual().name("app-command-partition-" + i).start(() -> drain(queue)));
+		}
+	}
+
+	/**
+	 * Queues a command on the partition of its application, waiting while the partition's
+	 * queue is full
+	 * @param id of application
+	 * @param c command
+	 * @return a future completed with the outcome of the command, or exceptionally if
+	 * executing it throws or the caller is interrupted while waiting; or null if the 
+	 * pipeline is closed
+	 */
+	CompletableFuture<Command.Outcome> submit(int id, Command c) {
+		Submission s = new Submission(id, c);
+		closeLock.readLock().lock();
+		try {
+			if(closed) {
+				return null;
+			}
+			queues.get(id & (PARTITIONS - 1)).put(s);
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			s.result.completeExceptionally(e);
+		}
+		finally {
+			closeLock.readLock().unlock();
+		}
+		return s.result;
+	}
+
+	/**
+	 * Stops taking commands, and waits for the writers to execute every command already
+	 * queued and stop. Does nothing if the pipeline is already closed.
+	 */
+	void close() {
+		closeLock.writeLock().lock();
+		try {
+			if(closed) {
+				return;
+			}
+			closed = true;
+		}
+		finally {
+			closeLock.writeLock().unlock();
+		}
+		boolean interrupted = false;
+		for(int i = 0; i < PARTITIONS; i++) {
+			while(true) {
+				try {
+					queues.get(i).put(STOP);
+					writers.get(i).join();
+					break;
+				}
+				catch(InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		}
+		if(interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Executes the commands of one partition in order until the pipeline is closed
+	 * @param queue of the partition
+	 */
+	private void drain(BlockingQueue<Submission> queue) {
+		ArrayList<Submission> batch = new ArrayList<Submission>(DRAIN);
+		while(true) {
+			try {
+				batch.add(queue.take());
+			}
+			catch(InterruptedException e) {
+				//only close stops a writer, by queuing STOP
+				continue;
+			}
+			queue.drainTo(batch, DRAIN - 1);
+			for(Submission s : batch) {
+				if(s == STOP) {
+					return;
+				}
+				try {
+					s.result.complete(manager.tryExecuteCommand(s.id, s.command));
+				}
+				catch(Throwable e) {
+					s.result.completeExceptionally(e);
+				}
+			}
+			batch.clear();
+		}
+	}
+
+	/**
+	 * A command waiting in a partition queue
+	 */
+	private static class Submission {
+
+		/** Id of the application */
+		private final int id;
+
+		/** Command to execute */
+		private final Command command;
+
+		/** Outcome of the command */
+		private final CompletableFuture<Command.Outcome> result = new CompletableFuture<Command.Outcome>();
+
+		/**
+		 * Constructs a Submission
+		 * @param id of the application
+		 * @param command to execute
+		 */
+		Submission(int id, Command command) {
+			this.id = id;
+			this.command = command;
+		}
+	}
+}
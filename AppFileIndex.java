@@ -0,0 +1,314 @@
+package edu.ncsu.csc216.app_manager.model.io;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import edu.ncsu.csc216.app_manager.model.application.Application;
+
+/**
+ * AppFileIndex reads single applications from an application file by id, through the
+ * sidecar index that AppWriter can write next to the file, without loading the file.
+ *
+ * The index file is named after the data file with ".idx" added. It starts with the
+ * magic number, a version byte, the size and CRC32 of the data file it was written
+ * for, and the entry count. Then come the entries in increasing id order, each an int
+ * id, a long byte offset and an int byte length of the record in the data file. The
+ * index ends with the CRC32 of everything before it.
+ *
+ * An application is found by binary search over the memory mapped entries and read
+ * with one positioned read of the data file.
+ */
+public final class AppFileIndex implements Closeable {
+
+	/** Magic number at the start of every index ("PKHI") */
+	static final int MAGIC = 0x504B4849;
+
+	/** Current version of the index format */
+	static final byte VERSION = 1;
+
+	/** Size in bytes of the header before the entries */
+	static final int HEADER_SIZE = 4 + 1 + 8 + 4 + 4;
+
+	/** Size in bytes of each entry */
+	static final int ENTRY_SIZE = 4 + 8 + 4;
+
+	/** Suffix added to the name of a data file to name its index */
+	public static final String SUFFIX = ".idx";
+
+	/** Channel of the data file */
+	private final FileChannel data;
+
+	/** Entries of the index */
+	private final MappedByteBuffer entries;
+
+	/** Number of entries */
+	private final int count;
+
+	/** CRC32 of the data file recorded in the index */
+	private final int dataChecksum;
+
+	/**
+	 * Constructs an AppFileIndex over an open data file and its mapped index
+	 * @param data channel of the data file
+	 * @param entries the mapped index
+	 * @param count number of entries
+	 * @param dataChecksum CRC32 of the data file recorded in the index
+	 */
+	private AppFileIndex(FileChannel data, MappedByteBuffer entries, int count, int dataChecksum) {
+		this.data = data;
+		this.entries = entries;
+		this.count = count;
+		this.dataChecksum = dataChecksum;
+	}
+
+	/**
+	 * Returns the name of the index file of a data file
+	 * @param fileName name of the data file
+	 * @return name of its index file
+	 */
+	public static String indexFileFor(String fileName) {
+		return fileName + SUFFIX;
+	}
+
+	/**
+	 * Opens a data file and its index. The index must be intact and must have been
+	 * written for a file of the data file's current size.
+	 * @param fileName name of the data file
+	 * @return the open index
+	 * @throws IllegalArgumentException if either file cannot be read, or the index is
+	 * damaged or does not match the data file
+	 */
+	public static AppFileIndex open(String fileName) {
+		FileChannel data = null;
+		try(FileChannel index = FileChannel.open(Path.of(indexFileFor(fileName)), StandardOpenOption.READ)) {
+			data = FileChannel.open(Path.of(fileName), StandardOpenOption.READ);
+			long size = index.size();
+			if(size < HEADER_SIZE + 4 || size > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("Invalid index file.");
+			}
+			MappedByteBuffer map = index.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			CRC32 crc = new CRC32();
+			crc.update(map.duplicate().limit((int) size - 4));
+			if(map.getInt(0) != MAGIC || map.get(4) != VERSION || map.getInt((int) size - 4) != (int) crc.getValue()) {
+				throw new IllegalArgumentException("Invalid index file.");
+			}
+			int count = map.getInt(17);
+			if(count < 0 || HEADER_SIZE + (long) count * ENTRY_SIZE + 4 != size || map.getLong(5) != data.size()) {
+				throw new IllegalArgumentException("Index does not match file.");
+			}
+			AppFileIndex opened = new AppFileIndex(data, map, count, map.getInt(13));
+			data = null;
+			return opened;
+		}
+		catch(IOException e) {
+			throw new IllegalArgumentException("Unable to load file.");
+		}
+		finally {
+			if(data != null) {
+				closeQuietly(data);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of applications in the index
+	 * @return the number of entries
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Reads the application with the given id from the data file
+	 * @param id of the application
+	 * @return the application, or null if there is no application with the id
+	 * @throws IllegalArgumentException if the record cannot be read or is invalid
+	 */
+	public Application find(int id) {
+		int entry = search(id);
+		if(entry < 0) {
+			return null;
+		}
+		int position = HEADER_SIZE + entry * ENTRY_SIZE;
+		long offset = entries.getLong(position + 4);
+		int length = entries.getInt(position + 12);
+		ByteBuffer record = ByteBuffer.allocate(length);
+		try {
+			while(record.hasRemaining()) {
+				if(data.read(record, offset + record.position()) < 0) {
+					throw new IllegalArgumentException("Index does not match file.");
+				}
+			}
+		}
+		catch(IOException e) {
+			throw new IllegalArgumentException("Unable to load file.");
+		}
+		Application a = new AppRecordParser(new StringReader(new String(record.array(), StandardCharsets.UTF_8))).next();
+		if(a.getAppId() != id) {
+			throw new IllegalArgumentException("Index does not match file.");
+		}
+		return a;
+	}
+
+	/**
+	 * Reads the whole data file and checks it against the checksum recorded in the index
+	 * @return true if the data file is the one the index was written for
+	 * @throws IllegalArgumentException if the data file cannot be read
+	 */
+	public boolean verify() {
+		CRC32 crc = new CRC32();
+		ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+		long position = 0;
+		try {
+			int read;
+			while((read = data.read(buffer, position)) >= 0) {
+				buffer.flip();
+				crc.update(buffer);
+				buffer.clear();
+				position += read;
+			}
+		}
+		catch(IOException e) {
+			throw new IllegalArgumentException("Unable to load file.");
+		}
+		return (int) crc.getValue() == dataChecksum;
+	}
+
+	/**
+	 * Closes the data file
+	 */
+	@Override
+	public void close() {
+		closeQuietly(data);
+	}
+
+	/**
+	 * Finds the entry of an id by binary search
+	 * @param id of the application
+	 * @return the number of the entry, or -1 if there is none
+	 */
+	private int search(int id) {
+		int low = 0;
+		int high = count - 1;
+		while(low <= high) {
+			int mid = (low + high) >>> 1;
+			int found = entries.getInt(HEADER_SIZE + mid * ENTRY_SIZE);
+			if(found < id) {
+				low = mid + 1;
+			}
+			else if(found > id) {
+				high = mid - 1;
+			}
+			else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Closes the given channel, ignoring any errors
+	 * @param c channel to close
+	 */
+	private static void closeQuietly(FileChannel c) {
+		try {
+			c.close();
+		}
+		catch(IOException e) {
+			//nothing left to release
+		}
+	}
+
+	/**
+	 * Builder collects the position of each record as a data file is written, and
+	 * writes the index once the data file is complete
+	 */
+	static final class Builder {
+
+		/** Application ids */
+		private int[] ids = new int[16];
+
+		/** Byte offsets of the records */
+		private long[] offsets = new long[16];
+
+		/** Byte lengths of the records */
+		private int[] lengths = new int[16];
+
+		/** Number of records */
+		private int count;
+
+		/**
+		 * Adds the position of a record
+		 * @param id of the application
+		 * @param offset of the record in the data file
+		 * @param length of the record in bytes
+		 */
+		void add(int id, long offset, int length) {
+			if(count == ids.length) {
+				ids = Arrays.copyOf(ids, count * 2);
+				offsets = Arrays.copyOf(offsets, count * 2);
+				lengths = Arrays.copyOf(lengths, count * 2);
+			}
+			ids[count] = id;
+			offsets[count] = offset;
+			lengths[count] = length;
+			count++;
+		}
+
+		/**
+		 * Writes the index, with the entries in increasing id order. Where several records
+		 * have the same id, only the first is kept, as it is when the file is loaded.
+		 * @param stream to write to
+		 * @param dataSize size of the data file
+		 * @param dataChecksum CRC32 of the data file
+		 * @throws IOException if the stream cannot be written
+		 */
+		void writeTo(OutputStream stream, long dataSize, int dataChecksum) throws IOException {
+			Integer[] order = new Integer[count];
+			boolean sorted = true;
+			for(int i = 0; i < count; i++) {
+				order[i] = i;
+				sorted &= i == 0 || ids[i - 1] < ids[i];
+			}
+			if(!sorted) {
+				//the sort is stable, so the first of several records with the same id stays first
+				Arrays.sort(order, (a, b) -> Integer.compare(ids[a], ids[b]));
+			}
+			int unique = 0;
+			for(int i = 0; i < count; i++) {
+				if(i == 0 || ids[order[i - 1]] != ids[order[i]]) {
+					unique++;
+				}
+			}
+			CRC32 crc = new CRC32();
+			DataOutputStream out = new DataOutputStream(new CheckedOutputStream(stream, crc));
+			out.writeInt(MAGIC);
+			out.writeByte(VERSION);
+			out.writeLong(dataSize);
+			out.writeInt(dataChecksum);
+			out.writeInt(unique);
+			for(int i = 0; i < count; i++) {
+				int entry = order[i];
+				if(i == 0 || ids[order[i - 1]] != ids[entry]) {
+					out.writeInt(ids[entry]);
+					out.writeLong(offsets[entry]);
+					out.writeInt(lengths[entry]);
+				}
+			}
+			out.writeInt((int) crc.getValue());
+			out.flush();
+		}
+	}
+}
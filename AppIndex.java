@@ -0,0 +1,219 @@
+package edu.ncsu.csc216.app_manager.model.manager;
+
+import java.util.ArrayList;
+
+import edu.ncsu.csc216.app_manager.model.application.Application;
+
+/**
+ * AppIndex maps application ids to Applications with an open-addressing hash table.
+ * Ids are kept as primitive ints, so lookups do not box. Collisions are resolved by
+ * linear probing, and removal shifts later entries back so no tombstones are left.
+ * Id 0 marks an empty slot, which is safe because application ids start at 1.
+ */
+class AppIndex {
+
+	/** Smallest table capacity */
+	private static final int MIN_CAPACITY = 16;
+
+	/** Ids in the table, or 0 for an empty slot */
+	private int[] keys;
+
+	/** Applications in the table, in the same slots as their ids */
+	private Application[] values;
+
+	/** Number of applications in the table */
+	private int size;
+
+	/** Capacity minus one, used to wrap slot numbers */
+	private int mask;
+
+	/**
+	 * Constructs an empty AppIndex
+	 */
+	AppIndex() {
+		this(0);
+	}
+
+	/**
+	 * Constructs an empty AppIndex with room for the given number of applications
+	 * @param expected number of applications
+	 */
+	AppIndex(int expected) {
+		allocate(capacityFor(expected));
+	}
+
+	/**
+	 * Returns the application with the given id
+	 * @param id of application
+	 * @return the application, or null if there is none
+	 */
+	Application get(int id) {
+		if(id == 0) {
+			return null;
+		}
+		int slot = slot(id);
+		while(keys[slot] != 0) {
+			if(keys[slot] == id) {
+				return values[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns true if there is an application with the given id
+	 * @param id of application
+	 * @return true if the id is in the index
+	 */
+	boolean contains(int id) {
+		return get(id) != null;
+	}
+
+	/**
+	 * Adds an application under its id, replacing any application with the same id
+	 * @param a application to add
+	 * @return the application that was replaced, or null
+	 */
+	Application put(Application a) {
+		int id = a.getAppId();
+		int slot = slot(id);
+		while(keys[slot] != 0) {
+			if(keys[slot] == id) {
+				Application old = values[slot];
+				values[slot] = a;
+				return old;
+			}
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = id;
+		values[slot] = a;
+		size++;
+		if(size > ((mask + 1) >> 2) * 3) {
+			resize((mask + 1) * 2);
+		}
+		return null;
+	}
+
+	/**
+	 * Removes the application with the given id
+	 * @param id of application
+	 * @return the application that was removed, or null if there was none
+	 */
+	Application remove(int id) {
+		if(id == 0) {
+			return null;
+		}
+		int slot = slot(id);
+		while(keys[slot] != 0) {
+			if(keys[slot] == id) {
+				Application old = values[slot];
+				shiftBack(slot);
+				size--;
+				return old;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the number of applications in the index
+	 * @return the number of applications
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the applications in the index, in no particular order
+	 * @return a new list of the applications
+	 */
+	ArrayList<Application> values() {
+		ArrayList<Application> list = new ArrayList<Application>(size);
+		for(int i = 0; i < keys.length; i++) {
+			if(keys[i] != 0) {
+				list.add(values[i]);
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * Fills the hole at the given slot by moving back any later entry in the same
+	 * probe run whose home slot is at or before the hole.
+	 * @param hole slot that was emptied
+	 */
+	private void shiftBack(int hole) {
+		int slot = hole;
+		while(true) {
+			slot = (slot + 1) & mask;
+			if(keys[slot] == 0) {
+				break;
+			}
+			int home = slot(keys[slot]);
+			//moves the entry if the hole lies cyclically between its home slot and its slot
+			if(((slot - home) & mask) >= ((slot - hole) & mask)) {
+				keys[hole] = keys[slot];
+				values[hole] = values[slot];
+				hole = slot;
+			}
+		}
+		keys[hole] = 0;
+		values[hole] = null;
+	}
+
+	/**
+	 * Moves every entry into a table of the given capacity
+	 * @param capacity of the new table, a power of two
+	 */
+	private void resize(int capacity) {
+		int[] oldKeys = keys;
+		Application[] oldValues = values;
+		allocate(capacity);
+		for(int i = 0; i < oldKeys.length; i++) {
+			if(oldKeys[i] != 0) {
+				int slot = slot(oldKeys[i]);
+				while(keys[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+
+	/**
+	 * Allocates empty arrays of the given capacity
+	 * @param capacity of the table, a power of two
+	 */
+	private void allocate(int capacity) {
+		keys = new int[capacity];
+		values = new Application[capacity];
+		mask = capacity - 1;
+	}
+
+	/**
+	 * Returns the home slot of an id
+	 * @param id of application
+	 * @return the slot that probing for the id starts at
+	 */
+	private int slot(int id) {
+		int h = id * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & mask;
+	}
+
+	/**
+	 * Returns the smallest power of two capacity that holds the given number of
+	 * entries without passing the load factor
+	 * @param expected number of entries
+	 * @return the capacity
+	 */
+	private static int capacityFor(int expected) {
+		int capacity = MIN_CAPACITY;
+		while((capacity >> 2) * 3 < expected) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+}
@@ -0,0 +1,748 @@
+package edu.ncsu.csc216.app_manager.model.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import edu.ncsu.csc216.app_manager.model.application.Application.AppType;
+import edu.ncsu.csc216.app_manager.model.command.Command;
+import edu.ncsu.csc216.app_manager.model.command.Command.CommandValue;
+import edu.ncsu.csc216.app_manager.model.command.Command.Resolution;
+import edu.ncsu.csc216.app_manager.model.command.IdCommand;
+
+/**
+ * AppJournal is an append-only log of the changes made to a list of applications.
+ * Each change is written as one record with a sequence number, so that a snapshot
+ * plus the records after the snapshot's sequence number restore the list. A batch of
+ * commands is written as a single record, so it is replayed whole or not at all.
+ *
+ * Every record is framed by its payload length and a CRC32 of the payload. A record
+ * that was only partly written when the program stopped is dropped when the journal
+ * is opened, and one whose write fails is cut off before the next record is appended.
+ *
+ * When a checkpoint starts, the journal is rotated: the current file is renamed with
+ * an ".old" suffix and a new file is started. Once the snapshot covering the rotated
+ * records is written, the rotated file is deleted. Until then, replay reads the rotated
+ * file before the current one.
+ *
+ * Records can be appended from several threads at once; each record is written whole.
+ */
+public class AppJournal implements Closeable {
+
+	/** Magic number at the start of every journal ("PKHJ") */
+	private static final int MAGIC = 0x504B484A;
+
+	/** Current version of the journal format */
+	private static final byte VERSION = 1;
+
+	/** Length of the journal header */
+	private static final int HEADER_LENGTH = 5;
+
+	/** Length of the frame around each record payload */
+	private static final int FRAME_LENGTH = 8;
+
+	/** Largest payload that will be read back */
+	private static final int MAX_PAYLOAD = 1 << 24;
+
+	/** The kinds of changes recorded in the journal */
+	public enum Operation { ADD, COMMAND, DELETE, BATCH }
+
+	/** Path of the journal file */
+	private final Path path;
+
+	/** Path that the journal file is renamed to when it is rotated */
+	private final Path rotatedPath;
+
+	/** Channel of the journal file */
+	private FileChannel channel;
+
+	/** Number of records to write between forced syncs, or 0 to leave syncing to the system */
+	private int groupCommit;
+
+	/** Records written since the last forced sync */
+	private int unsynced;
+
+	/** Sequence number of the last record written */
+	private long sequence;
+
+	/** Number of records in the journal */
+	private long records;
+
+	/** 
+	 * True if a record failed part way through writing and could not be removed, so a
+	 * record appended after it would be lost on recovery. Cleared when the journal is rotated.
+	 */
+	private boolean failed;
+
+	/** 
+	 * Held while a record is written or the journal's state is read or changed. It is a
+	 * ReentrantLock rather than the journal's monitor so that a virtual thread waiting on
+	 * the file while holding it does not pin its carrier thread.
+	 */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/** Buffer that record payloads are encoded into */
+	private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+
+	/** Stream over the payload buffer */
+	private final DataOutputStream payload = new DataOutputStream(buffer);
+
+	/**
+	 * Opens the journal in the given file, creating it if it does not exist. Any partly
+	 * written record at the end of the file is removed.
+	 * @param fileName name of the journal file
+	 * @param groupCommit number of records to write between forced syncs, 1 to sync every
+	 * record, or 0 to leave syncing to the system
+	 * @throws IllegalArgumentException if the file cannot be opened or is not a journal
+	 */
+	public AppJournal(String fileName, int groupCommit) {
+		if(groupCommit < 0) {
+			throw new IllegalArgumentException("Invalid group commit size.");
+		}
+		this.groupCommit = groupCommit;
+		path = Path.of(fileName).toAbsolutePath();
+		rotatedPath = path.resolveSibling(path.getFileName() + ".old");
+		try {
+			channel = openSegment();
+		}
+		catch(IOException e) {
+			throw new IllegalArgumentException("Unable to load file.");
+		}
+		try {
+			if(Files.exists(rotatedPath)) {
+				try(FileChannel rotated = FileChannel.open(rotatedPath, StandardOpenOption.READ)) {
+					scan(rotated, null, Long.MAX_VALUE);
+				}
+			}
+			long end = scan(channel, entry -> records++, Long.MIN_VALUE);
+			channel.truncate(end);
+			channel.position(end);
+		}
+		catch(IOException | IllegalArgumentException e) {
+			//the channel is closed directly, since close() could be overridden to use a
+			//journal that was never opened
+			try {
+				channel.close();
+			}
+			catch(IOException closeFailure) {
+				//the journal cannot be used either way
+			}
+			throw new IllegalArgumentException("Unable to load file.");
+		}
+	}
+
+	/**
+	 * Passes every record with a sequence number greater than the given one to the consumer,
+	 * in the order they were written
+	 * @param afterSequence sequence number of the last change already applied
+	 * @param consumer of the records
+	 * @throws IllegalArgumentException if the journal cannot be read
+	 */
+	public void replay(long afterSequence, Consumer<Entry> consumer) {
+		try {
+			if(Files.exists(rotatedPath)) {
+				try(FileChannel rotated = FileChannel.open(rotatedPath, StandardOpenOption.READ)) {
+					scan(rotated, consumer, afterSequence);
+				}
+			}
+			scan(channel, consumer, afterSequence);
+		}
+		catch(IOException e) {
+			throw new IllegalArgumentException("Unable to load file.");
+		}
+	}
+
+	/**
+	 * Records that an application was added
+	 * @param id of the new application
+	 * @param type of the application
+	 * @param summary of the application
+	 * @param note of the application
+	 */
+	public void appendAdd(int id, AppType type, String summary, String note) {
+		lock.lock();
+		try {
+			beginRecord(Operation.ADD, id);
+			payload.writeByte(type.ordinal());
+			SnapshotFormat.writeString(payload, summary);
+			SnapshotFormat.writeString(payload, note);
+			endRecord();
+		}
+		catch(IOException e) {
+			throw new IllegalArgumentException("Unable to save file");
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Records that a command was executed on an application
+	 * @param id of the application
+	 * @param c command that was executed
+	 */
+	public void appendCommand(int id, Command c) {
+		lock.lock();
+		try {
+			beginRecord(Operation.COMMAND, id);
+			writeCommand(c);
+			endRecord();
+		}
+		catch(IOException e) {
+			throw new IllegalArgumentException("Unable to save file");
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Records that a batch of commands was executed, as one record. The id of the record
+	 * is the number of commands.
+	 * @param commands that were applied, in the order they were applied
+	 * @throws IllegalArgumentException if the record cannot be written or is too large to read back
+	 */
+	public void appendBatch(List<IdCommand> commands) {
+		lock.lock();
+		try {
+			beginRecord(Operation.BATCH, commands.size());
+			for(IdCommand c : commands) {
+				payload.writeInt(c.getAppId());
+				writeCommand(c.getCommand());
+			}
+			if(buffer.size() > MAX_PAYLOAD) {
+				throw new IOException("Record too large");
+			}
+			endRecord();
+		}
+		catch(IOException e) {
+			throw new IllegalArgumentException("Unable to save file");
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Records that an application was deleted
+	 * @param id of the application
+	 */
+	public void appendDelete(int id) {
+		lock.lock();
+		try {
+			beginRecord(Operation.DELETE, id);
+			endRecord();
+		}
+		catch(IOException e) {
+			throw new IllegalArgumentException("Unable to save file");
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Forces every record written so far to the storage device
+	 * @throws IllegalArgumentException if the journal cannot be synced
+	 */
+	public void sync() {
+		lock.lock();
+		try {
+			channel.force(false);
+			unsynced = 0;
+		}
+		catch(IOException e) {
+			throw new IllegalArgumentException("Unable to save file");
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Rotates the journal, so that the records written so far can be dropped once a snapshot
+	 * covering them is written. If an earlier rotated file was never discarded, it is kept and 
+	 * the journal is not rotated; the records stay in the current file until the next rotation.
+	 * The current file stays open until the new one is, so if the rotation fails the journal
+	 * goes on appending to the current file.
+	 * @return true if the journal was rotated
+	 * @throws IllegalArgumentException if the journal cannot be rotated
+	 */
+	public boolean rotate() {
+		lock.lock();
+		try {
+			if(Files.exists(rotatedPath)) {
+				return false;
+			}
+			try {
+				channel.force(true);
+				Files.move(path, rotatedPath, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch(IOException e) {
+				throw new IllegalArgumentException("Unable to save file");
+			}
+			FileChannel previous = channel;
+			try {
+				channel = openSegment();
+			}
+			catch(IOException e) {
+				try {
+					Files.move(rotatedPath, path, StandardCopyOption.ATOMIC_MOVE);
+				}
+				catch(IOException moveFailure) {
+					//records appended now would go to the rotated file, which is deleted 
+					//after the next checkpoint, so no more are taken
+					failed = true;
+				}
+				throw new IllegalArgumentException("Unable to save file");
+			}
+			try {
+				previous.close();
+			}
+			catch(IOException e) {
+				//the rotated file was already forced to disk
+			}
+			records = 0;
+			unsynced = 0;
+			failed = false;
+			return true;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Deletes the rotated journal file once a snapshot covering its records is written
+	 * @throws IllegalArgumentException if the file cannot be deleted
+	 */
+	public void discardRotated() {
+		try {
+			Files.deleteIfExists(rotatedPath);
+		}
+		catch(IOException e) {
+			throw new IllegalArgumentException("Unable to save file");
+		}
+	}
+
+	/**
+	 * Makes sure the next record written has a sequence number greater than the given one
+	 * @param last sequence number already used, such as the one stored in a snapshot
+	 */
+	public void advanceSequence(long last) {
+		lock.lock();
+		try {
+			sequence = Math.max(sequence, last);
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Sets the number of records to write between forced syncs
+	 * @param groupCommit number of records, 1 to sync every record, or 0 to leave syncing to the system
+	 */
+	public void setGroupCommit(int groupCommit) {
+		lock.lock();
+		try {
+			if(groupCommit < 0) {
+				throw new IllegalArgumentException("Invalid group commit size.");
+			}
+			this.groupCommit = groupCommit;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the sequence number of the last record written
+	 * @return the last sequence number
+	 */
+	public long getSequence() {
+		lock.lock();
+		try {
+			return sequence;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of records in the journal
+	 * @return the number of records
+	 */
+	public long getRecordCount() {
+		lock.lock();
+		try {
+			return records;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the size of the journal file in bytes
+	 * @return the size of the journal
+	 */
+	public long getSize() {
+		lock.lock();
+		try {
+			return channel.position();
+		}
+		catch(IOException e) {
+			return 0;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Syncs and closes the journal
+	 */
+	@Override
+	public void close() {
+		lock.lock();
+		try {
+			if(channel.isOpen()) {
+				channel.force(false);
+			}
+			channel.close();
+		}
+		catch(IOException e) {
+			//the journal is closed either way
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Opens the journal file, writing the journal header if the file is new
+	 * @return channel of the journal file
+	 * @throws IOException if the file cannot be opened or written
+	 */
+	private FileChannel openSegment() throws IOException {
+		FileChannel segment = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		if(segment.size() < HEADER_LENGTH) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+			header.putInt(MAGIC).put(VERSION).flip();
+			segment.truncate(0);
+			segment.write(header, 0);
+			segment.force(true);
+		}
+		segment.position(HEADER_LENGTH);
+		return segment;
+	}
+
+	/**
+	 * Reads the records in a journal file, stopping at the first record that is incomplete
+	 * or fails its checksum. Updates the sequence number as it reads.
+	 * @param segment channel of the journal file
+	 * @param consumer of the records, or null to only validate them
+	 * @param afterSequence only records after this sequence number are passed to the consumer
+	 * @return the position just past the last valid record
+	 * @throws IOException if the file cannot be read
+	 */
+	private long scan(FileChannel segment, Consumer<Entry> consumer, long afterSequence) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+		segment.read(header, 0);
+		header.flip();
+		if(header.remaining() < HEADER_LENGTH || header.getInt() != MAGIC || header.get() != VERSION) {
+			throw new IllegalArgumentException("Invalid journal.");
+		}
+		long position = HEADER_LENGTH;
+		long size = segment.size();
+		ByteBuffer frame = ByteBuffer.allocate(FRAME_LENGTH);
+		CRC32 crc = new CRC32();
+		while(position + FRAME_LENGTH <= size) {
+			frame.clear();
+			segment.read(frame, position);
+			frame.flip();
+			int length = frame.getInt();
+			int checksum = frame.getInt();
+			if(length <= 0 || length > MAX_PAYLOAD || position + FRAME_LENGTH + length > size) {
+				break;
+			}
+			ByteBuffer body = ByteBuffer.allocate(length);
+			segment.read(body, position + FRAME_LENGTH);
+			crc.reset();
+			crc.update(body.array(), 0, length);
+			if((int) crc.getValue() != checksum) {
+				break;
+			}
+			Entry entry = decode(body.array());
+			sequence = Math.max(sequence, entry.sequence);
+			if(consumer != null && entry.sequence > afterSequence) {
+				consumer.accept(entry);
+			}
+			position += FRAME_LENGTH + length;
+		}
+		return position;
+	}
+
+	/**
+	 * Decodes a record payload
+	 * @param bytes of the payload
+	 * @return the decoded entry
+	 * @throws IOException if the payload is malformed
+	 */
+	private static Entry decode(byte[] bytes) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+		long sequence = in.readLong();
+		Operation op = Operation.values()[in.readUnsignedByte()];
+		int id = in.readInt();
+		switch(op) {
+			case ADD:
+				AppType type = AppType.values()[in.readUnsignedByte()];
+				return new Entry(sequence, op, id, type, SnapshotFormat.readString(in), SnapshotFormat.readString(in), null);
+			case COMMAND:
+				return new Entry(sequence, op, id, null, null, null, readCommand(in));
+			case BATCH:
+				if(id < 0) {
+					throw new IOException("Invalid batch size");
+				}
+				ArrayList<IdCommand> commands = new ArrayList<IdCommand>(Math.min(id, bytes.length));
+				for(int i = 0; i < id; i++) {
+					int appId = in.readInt();
+					commands.add(new IdCommand(appId, readCommand(in)));
+				}
+				return new Entry(sequence, op, id, commands);
+			default:
+				return new Entry(sequence, op, id, null, null, null, null);
+		}
+	}
+
+	/**
+	 * Encodes a command into the record payload
+	 * @param c command to encode
+	 * @throws IOException if the command cannot be encoded
+	 */
+	private void writeCommand(Command c) throws IOException {
+		payload.writeByte(c.getCommand().ordinal());
+		payload.writeByte(c.getResolution() == null ? -1 : c.getResolution().ordinal());
+		payload.writeBoolean(c.getReviewerId() != null);
+		if(c.getReviewerId() != null) {
+			SnapshotFormat.writeString(payload, c.getReviewerId());
+		}
+		SnapshotFormat.writeString(payload, c.getNote());
+	}
+
+	/**
+	 * Decodes a command from a record payload
+	 * @param in stream over the payload
+	 * @return the command
+	 * @throws IOException if the payload is malformed
+	 */
+	private static Command readCommand(DataInputStream in) throws IOException {
+		CommandValue value = CommandValue.values()[in.readUnsignedByte()];
+		byte resolution = in.readByte();
+		String reviewer = in.readBoolean() ? SnapshotFormat.readString(in) : null;
+		String note = SnapshotFormat.readString(in);
+		return new Command(value, reviewer, resolution < 0 ? null : Resolution.values()[resolution], note);
+	}
+
+	/**
+	 * Starts encoding a record
+	 * @param op kind of change
+	 * @param id of the application changed
+	 * @throws IOException if the record cannot be encoded
+	 */
+	private void beginRecord(Operation op, int id) throws IOException {
+		if(failed) {
+			throw new IOException("Journal failed");
+		}
+		buffer.reset();
+		payload.writeLong(sequence + 1);
+		payload.writeByte(op.ordinal());
+		payload.writeInt(id);
+	}
+
+	/**
+	 * Frames the encoded record and appends it to the file, syncing if a group is complete.
+	 * If the write fails part way through, the part written is cut off again, since 
+	 * recovery stops at the first torn record and would drop every record after it.
+	 * @throws IOException if the record cannot be written
+	 */
+	private void endRecord() throws IOException {
+		byte[] bytes = buffer.toByteArray();
+		CRC32 crc = new CRC32();
+		crc.update(bytes, 0, bytes.length);
+		ByteBuffer record = ByteBuffer.allocate(FRAME_LENGTH + bytes.length);
+		record.putInt(bytes.length).putInt((int) crc.getValue()).put(bytes).flip();
+		long start = channel.position();
+		try {
+			while(record.hasRemaining()) {
+				channel.write(record);
+			}
+		}
+		catch(IOException e) {
+			try {
+				channel.truncate(start);
+				channel.position(start);
+			}
+			catch(IOException truncateFailure) {
+				failed = true;
+			}
+			throw e;
+		}
+		sequence++;
+		records++;
+		unsynced++;
+		if(groupCommit > 0 && unsynced >= groupCommit) {
+			sync();
+		}
+	}
+
+	/**
+	 * A single change read back from the journal
+	 */
+	public static class Entry {
+
+		/** Sequence number of the change */
+		private final long sequence;
+
+		/** Kind of change */
+		private final Operation operation;
+
+		/** Id of the application changed */
+		private final int appId;
+
+		/** Type of an added application */
+		private final AppType appType;
+
+		/** Summary of an added application */
+		private final String summary;
+
+		/** Note of an added application */
+		private final String note;
+
+		/** Command that was executed */
+		private final Command command;
+
+		/** Commands of a batch, in the order they were applied */
+		private final List<IdCommand> commands;
+
+		/**
+		 * Constructs an Entry
+		 * @param sequence number of the change
+		 * @param operation kind of change
+		 * @param appId id of the application changed
+		 * @param appType type of an added application
+		 * @param summary of an added application
+		 * @param note of an added application
+		 * @param command that was executed
+		 */
+		Entry(long sequence, Operation operation, int appId, AppType appType, String summary, String note, Command command) {
+			this.sequence = sequence;
+			this.operation = operation;
+			this.appId = appId;
+			this.appType = appType;
+			this.summary = summary;
+			this.note = note;
+			this.command = command;
+			this.commands = null;
+		}
+
+		/**
+		 * Constructs the Entry of a batch of commands
+		 * @param sequence number of the change
+		 * @param operation kind of change
+		 * @param count number of commands in the batch
+		 * @param commands of the batch
+		 */
+		Entry(long sequence, Operation operation, int count, List<IdCommand> commands) {
+			this.sequence = sequence;
+			this.operation = operation;
+			this.appId = count;
+			this.appType = null;
+			this.summary = null;
+			this.note = null;
+			this.command = null;
+			this.commands = commands;
+		}
+
+		/**
+		 * Gets and returns the sequence number of the change
+		 * @return the sequence number
+		 */
+		public long getSequence() {
+			return sequence;
+		}
+
+		/**
+		 * Gets and returns the kind of change
+		 * @return the operation
+		 */
+		public Operation getOperation() {
+			return operation;
+		}
+
+		/**
+		 * Gets and returns the id of the application changed
+		 * @return the application id, or the number of commands of a batch
+		 */
+		public int getAppId() {
+			return appId;
+		}
+
+		/**
+		 * Gets and returns the type of an added application
+		 * @return the application type, or null for other operations
+		 */
+		public AppType getAppType() {
+			return appType;
+		}
+
+		/**
+		 * Gets and returns the summary of an added application
+		 * @return the summary, or null for other operations
+		 */
+		public String getSummary() {
+			return summary;
+		}
+
+		/**
+		 * Gets and returns the note of an added application
+		 * @return the note, or null for other operations
+		 */
+		public String getNote() {
+			return note;
+		}
+
+		/**
+		 * Gets and returns the command that was executed
+		 * @return the command, or null for other operations
+		 */
+		public Command getCommand() {
+			return command;
+		}
+
+		/**
+		 * Gets and returns the commands of a batch
+		 * @return the commands in the order they were applied, or null for other operations
+		 */
+		public List<IdCommand> getCommands() {
+			return commands;
+		}
+	}
+}
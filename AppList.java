@@ -1,28 +1,110 @@
 package edu.ncsu.csc216.app_manager.model.manager;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 import edu.ncsu.csc216.app_manager.model.application.Application;
 import edu.ncsu.csc216.app_manager.model.application.Application.AppType;
+import edu.ncsu.csc216.app_manager.model.application.NotePool;
+import edu.ncsu.csc216.app_manager.model.application.ReviewerDictionary;
 import edu.ncsu.csc216.app_manager.model.command.Command;
+import edu.ncsu.csc216.app_manager.model.command.IdCommand;
 
 /**
  * AppList class maintains a List of Applications.
+ * 
+ * Applications are kept in id order for display, and in an AppIndex for constant
+ * time lookup by id. Deleted applications are removed from the index right away, and
+ * from the ordered list once they make up half of it or an application has to be 
+ * inserted in the middle. An AppAttributeIndex groups
+ * the ids of the applications by type, state, resolution and reviewer in bitmaps; it is 
+ * kept up to date as applications are added, deleted and updated through the AppList.
+ * An AppColumnStore holds the same applications column by column for listings and counts.
+ * The applications in the list share the text of their notes through one NotePool and
+ * their reviewer ids through one ReviewerDictionary, whose codes also key the reviewer 
+ * groups and column.
+ * 
+ * An AppList can be used from several threads at once. Adding and deleting applications
+ * takes the list's write lock. Commands take its read lock and the lock of one of a fixed
+ * set of stripes chosen by application id, so commands on different applications run in
+ * parallel while commands on the same application run one at a time. The attribute index
+ * and column store are changed and read under a separate short lock; listings build
+ * only the rows they return from the columns under it.
+ * 
+ * Once a snapshot has been taken, every change also publishes a new version of the list
+ * in a persistent AppTrie, which shares all but the changed path with the version before
+ * it. A snapshot is just the current version, so reports can read it without locks.
  */
 public class AppList {
+	/** Number of stripes that commands lock by application id; a power of two */
+	private static final int STRIPES = 64;
+	
+	/** Fewest deleted applications that are removed from the ordered list at once */
+	private static final int MIN_DELETED = 16;
+	
 	/** Counter for the number of applications */
-	private int counter;
+	private final AtomicInteger counter = new AtomicInteger();
 	/** Instane of application*/
 	private ArrayList<Application> apps;
 	
+	/** Applications by id */
+	private AppIndex index;
+	
+	/** Number of deleted applications still in the ordered list */
+	private int deleted;
+	
+	/** Applications by type, state, resolution and reviewer */
+	private AppAttributeIndex attributes;
+	
+	/** Fields of the applications, column by column */
+	private AppColumnStore columns;
+	
+	/** Note texts shared by the applications in the list */
+	private NotePool notePool;
+	
+	/** Reviewer ids shared by the applications in the list */
+	private ReviewerDictionary reviewers;
+	
+	/** Held for reading while commands run, and for writing while applications are added or deleted */
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	
+	/** Locks that commands on applications hold, by application id */
+	private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+	
+	/** Held while the attribute index or column store is changed or read */
+	private final ReentrantLock indexLock = new ReentrantLock();
+	
+	/** 
+	 * Current version of the list for snapshots, holding a frozen copy of each application,
+	 * or null until the first snapshot is taken. It is replaced, never changed, under the
+	 * write lock or the index lock.
+	 */
+	private volatile AppTrie version;
+	
 
 	/**
 	 * Constructor for an AppList object
 	 */
 	public AppList() {
 		apps = new ArrayList<Application>();
-		counter = 0;
+		index = new AppIndex();
+		notePool = new NotePool();
+		reviewers = new ReviewerDictionary();
+		attributes = new AppAttributeIndex(index, reviewers);
+		columns = new AppColumnStore(reviewers);
+		for(int i = 0; i < STRIPES; i++) {
+			stripes[i] = new ReentrantLock();
+		}
 	}
 	
 	/**
@@ -33,53 +115,263 @@ public class AppList {
 	 * @return the id of the application 
 	 */
 	public int addApp(AppType type, String summary, String note) {
-		counter++;
-		Application newApp = new Application(counter, type, summary, note);
-		addApp(newApp);
-		return counter;
+		int id = counter.incrementAndGet();
+		Application newApp = new Application(id, type, summary, note);
+		lock.writeLock().lock();
+		try {
+			addApp(newApp);
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+		return id;
+	}
+	
+	/**
+	 * Adds an Application with a known id, such as one being restored from a journal.
+	 * Later applications are numbered after the largest id seen.
+	 * @param id of application
+	 * @param type of application
+	 * @param summary of application 
+	 * @param note of application
+	 */
+	public void restoreApp(int id, AppType type, String summary, String note) {
+		Application restored = new Application(id, type, summary, note);
+		lock.writeLock().lock();
+		try {
+			addApp(restored);
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+		counter.accumulateAndGet(id, Math::max);
 	}
 	
 	/**
 	 * Adds a list of applications to the existing list of applications.
+	 * The applications are sorted by id once, unless they already are, and the first 
+	 * application with each id is kept.
 	 * @param apps list of applications to be added
 	 */
 	public void addApps(List<Application> apps) {
-		this.apps = new ArrayList<Application>();
-		for(int i = 0; i < apps.size(); i++) {
-			addApp(apps.get(i));
+		ArrayList<Application> sorted = new ArrayList<Application>(apps);
+		if(!isSortedById(sorted)) {
+			//the sort is stable, so the first of several applications with the same id stays first
+			sorted.sort(Comparator.comparingInt(Application::getAppId));
+		}
+		
+		lock.writeLock().lock();
+		try {
+			replaceApps(sorted);
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * Replaces the applications in the list with the first application of each id
+	 * @param sorted applications in increasing id order
+	 */
+	private void replaceApps(ArrayList<Application> sorted) {
+		this.apps = new ArrayList<Application>(sorted.size());
+		index = new AppIndex(sorted.size());
+		notePool = new NotePool();
+		reviewers = new ReviewerDictionary();
+		attributes = new AppAttributeIndex(index, reviewers);
+		deleted = 0;
+		for(int i = 0; i < sorted.size(); i++) {
+			Application a = sorted.get(i);
+			if(i == 0 || sorted.get(i - 1).getAppId() != a.getAppId()) {
+				a.shareNotes(notePool);
+				a.shareReviewer(reviewers);
+				index.put(a);
+				attributes.add(a);
+				this.apps.add(a);
+			}
 		}
 		
-		counter = this.apps.get(this.apps.size() - 1).getAppId();
+		attributes.optimize();
+		columns = new AppColumnStore(this.apps, reviewers);
+		if(version != null) {
+			version = newVersion();
+		}
+		counter.set(this.apps.isEmpty() ? 0 : this.apps.get(this.apps.size() - 1).getAppId());
 
 	}
 	
+	/**
+	 * Returns true if the applications are in order of increasing id
+	 * @param apps list of applications to check
+	 * @return true if no application has a smaller id than the one before it
+	 */
+	private static boolean isSortedById(List<Application> apps) {
+		for(int i = 1; i < apps.size(); i++) {
+			if(apps.get(i - 1).getAppId() > apps.get(i).getAppId()) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
 	/**
 	 * Adds an application to the list of applications
 	 * @param a application to be added
 	 */
 	private void addApp(Application a) {
 		//checks if there is a duplicate app id, skips adding if so
-		for(int i = 0; i < apps.size(); i++) {
-			if(apps.get(i).getAppId() == a.getAppId()) {
-				return;
-			}
+		if(index.contains(a.getAppId())) {
+			return;
+		}
+		a.shareNotes(notePool);
+		a.shareReviewer(reviewers);
+		index.put(a);
+		attributes.add(a);
+		publish(a);
+		
+		//new applications usually have the largest id, so they go at the end
+		if(apps.isEmpty() || apps.get(apps.size() - 1).getAppId() < a.getAppId()) {
+			apps.add(a);
+			columns.append(a);
+			return;
 		}
 		
 		//finds the index of where the application should be added
-		int index = 0;
-		while(index < apps.size() && apps.get(index).getAppId() < a.getAppId()) {
-			index++;
+		removeDeleted();
+		int low = 0;
+		int high = apps.size();
+		while(low < high) {
+			int mid = (low + high) >>> 1;
+			if(apps.get(mid).getAppId() < a.getAppId()) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
 		}
 		
-		apps.add(index, a);
+		apps.add(low, a);
+		columns.insert(a);
 	}
 	
 	/**
-	 * Gets and returns the list of applications
-	 * @return the list of applications
+	 * Removes deleted applications from the ordered list in one pass
+	 */
+	private void removeDeleted() {
+		if(deleted > 0) {
+			apps.removeIf(a -> index.get(a.getAppId()) != a);
+			deleted = 0;
+		}
+	}
+	
+	/**
+	 * Gets and returns the list of applications. The list is a copy, so it does not change
+	 * as applications are added or deleted.
+	 * @return the list of applications, in id order
 	 */
 	public List<Application> getApps(){
-		return apps;
+		lock.readLock().lock();
+		try {
+			if(deleted == 0) {
+				return new ArrayList<Application>(apps);
+			}
+			ArrayList<Application> live = new ArrayList<Application>(index.size());
+			for(Application a : apps) {
+				if(index.get(a.getAppId()) == a) {
+					live.add(a);
+				}
+			}
+			return live;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Takes a snapshot of the list that does not change as the list does. The first
+	 * snapshot copies every application; later snapshots take no time at all.
+	 * @return the snapshot
+	 */
+	public AppSnapshot snapshot() {
+		AppTrie current = version;
+		if(current == null) {
+			lock.writeLock().lock();
+			try {
+				if(version == null) {
+					version = newVersion();
+				}
+				current = version;
+			}
+			finally {
+				lock.writeLock().unlock();
+			}
+		}
+		return new AppSnapshot(current);
+	}
+	
+	/**
+	 * Builds a version holding a copy of every application. Must be called while holding
+	 * the write lock.
+	 * @return the version
+	 */
+	private AppTrie newVersion() {
+		ArrayList<Application> copies = new ArrayList<Application>(index.size());
+		for(Application a : apps) {
+			if(index.get(a.getAppId()) == a) {
+				copies.add(a.copy());
+			}
+		}
+		return AppTrie.of(copies);
+	}
+	
+	/**
+	 * Publishes a new version with a copy of an application as it is now, if snapshots 
+	 * have been taken. Must be called while holding the write lock or the index lock.
+	 * @param a application that was added or changed
+	 */
+	private void publish(Application a) {
+		AppTrie current = version;
+		if(current != null) {
+			version = current.put(a.getAppId(), a.copy());
+		}
+	}
+	
+	/**
+	 * Returns the number of applications in the list
+	 * @return the number of applications
+	 */
+	int size() {
+		lock.readLock().lock();
+		try {
+			return index.size();
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Runs a read of the attribute index, or of other state that commands change, while 
+	 * no application is being added, deleted or reindexed
+	 * @param <T> type of the result
+	 * @param read to run
+	 * @return the result of the read
+	 */
+	<T> T readIndex(Supplier<T> read) {
+		lock.readLock().lock();
+		try {
+			indexLock.lock();
+			try {
+				return read.get();
+			}
+			finally {
+				indexLock.unlock();
+			}
+		}
+		finally {
+			lock.readLock().unlock();
+		}
 	}
 	
 	/**
@@ -92,13 +384,92 @@ public class AppList {
 		if(type == null) {
 			throw new IllegalArgumentException("Invalid type.");
 		}
-		ArrayList<Application> appTypes = new ArrayList<Application>();
-		for(int i = 0; i < apps.size(); i++) {
-			if(apps.get(i).getAppType().equals(type)) {
-				appTypes.add(apps.get(i));
-			}
+		return readIndex(() -> attributes.select(attributes.type(type)));
+	}
+	
+	/**
+	 * Gets and returns the applications in a state
+	 * @param state name of the state
+	 * @return the list of applications in the state, in id order
+	 * @throws IllegalArgumentException if state is null
+	 */
+	public List<Application> getAppsByState(String state) {
+		if(state == null) {
+			throw new IllegalArgumentException("Invalid state.");
+		}
+		return readIndex(() -> attributes.select(attributes.state(state)));
+	}
+	
+	/**
+	 * Gets and returns the applications with a resolution
+	 * @param resolution of application
+	 * @return the list of applications with the resolution, in id order
+	 * @throws IllegalArgumentException if resolution is null
+	 */
+	public List<Application> getAppsByResolution(String resolution) {
+		if(resolution == null) {
+			throw new IllegalArgumentException("Invalid resolution.");
+		}
+		return readIndex(() -> attributes.select(attributes.resolution(resolution)));
+	}
+	
+	/**
+	 * Gets and returns the applications assigned to a reviewer
+	 * @param reviewer id of the reviewer
+	 * @return the list of applications with the reviewer, in id order
+	 * @throws IllegalArgumentException if reviewer is null
+	 */
+	public List<Application> getAppsByReviewer(String reviewer) {
+		if(reviewer == null) {
+			throw new IllegalArgumentException("Invalid reviewer.");
+		}
+		return readIndex(() -> attributes.select(attributes.reviewer(reviewer)));
+	}
+	
+	/**
+	 * Returns the id, state name, type and summary of every application
+	 * @return a 2D array with one row per application, in id order
+	 */
+	public Object[][] getAppsAsArray() {
+		return readIndex(() -> columns.toArray());
+	}
+	
+	/**
+	 * Returns the id, state name, type and summary of every application of a type
+	 * @param type of application
+	 * @return a 2D array with one row per application of the type, in id order
+	 * @throws IllegalArgumentException if type is null
+	 */
+	public Object[][] getAppsAsArrayByType(String type) {
+		if(type == null) {
+			throw new IllegalArgumentException("Invalid type.");
 		}
-		return appTypes;
+		return readIndex(() -> columns.toArrayByType(type));
+	}
+	
+	/**
+	 * Counts the applications in each state
+	 * @return the number of applications by state name, with every state present
+	 */
+	public Map<String, Integer> countAppsByState() {
+		return readIndex(() -> columns.countByState());
+	}
+	
+	/**
+	 * Counts the applications assigned to each reviewer
+	 * @return the number of applications by reviewer id
+	 */
+	public Map<String, Integer> countAppsByReviewer() {
+		return readIndex(() -> columns.countByReviewer());
+	}
+	
+	/**
+	 * Starts a query over the applications that can combine types, states, resolutions
+	 * and reviewers
+	 * @return a query matching every application
+	 */
+	public AppQuery query() {
+		return new AppQuery(this);
 	}
 	
 	/**
@@ -107,38 +478,322 @@ public class AppList {
 	 * @return Application given by the id
 	 */
 	public Application getAppById(int id) {
-		for(int i = 0; i < apps.size(); i++) {
-			if(apps.get(i).getAppId() == id) {
-				return apps.get(i);
-			}
+		lock.readLock().lock();
+		try {
+			return index.get(id);
 		}
-		return null;
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Returns the attribute index, which must only be used inside readIndex
+	 * @return the attribute index
+	 */
+	AppAttributeIndex attributes() {
+		return attributes;
 	}
 	
 	/**
 	 * Executes a given command on an application
 	 * @param id of application 
 	 * @param c command 
+	 * @throws UnsupportedOperationException if the command is not appropriate for the application's state
 	 */
 	public void executeCommand(int id, Command c) {
-		for(int i = 0; i < apps.size(); i++) {
-			if(apps.get(i).getAppId() == id) {
-				apps.get(i).update(c);
+		if(tryExecuteCommand(id, c) == Command.Outcome.REJECTED) {
+			throw new UnsupportedOperationException("Invalid information.");
+		}
+	
+	}
+	
+	/**
+	 * Executes a given command on an application without throwing if the command is
+	 * not appropriate for the application's state
+	 * @param id of application 
+	 * @param c command 
+	 * @return APPLIED if the application was updated, REJECTED if the command is not 
+	 * appropriate for its state, or NOT_FOUND if there is no application with the id
+	 */
+	public Command.Outcome tryExecuteCommand(int id, Command c) {
+		return tryExecuteCommand(id, c, null);
+	}
+	
+	/**
+	 * Executes a given command on an application without throwing if the command is
+	 * not appropriate for the application's state, and runs the given action if it is 
+	 * applied before any other command can change the application
+	 * @param id of application 
+	 * @param c command 
+	 * @param applied action to run if the command is applied, such as journaling it, or null
+	 * @return APPLIED if the application was updated, REJECTED if the command is not 
+	 * appropriate for its state, or NOT_FOUND if there is no application with the id
+	 */
+	Command.Outcome tryExecuteCommand(int id, Command c, Runnable applied) {
+		lock.readLock().lock();
+		try {
+			Application a = index.get(id);
+			if(a == null) {
+				return Command.Outcome.NOT_FOUND;
+			}
+			ReentrantLock stripe = stripes[id & (STRIPES - 1)];
+			stripe.lock();
+			try {
+				Command.Outcome outcome = update(a, c);
+				if(outcome == Command.Outcome.APPLIED && applied != null) {
+					applied.run();
+				}
+				return outcome;
+			}
+			finally {
+				stripe.unlock();
+			}
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Executes one command on each of the applications with the given ids, in parallel
+	 * on the common ForkJoinPool, and passes the commands that were applied, in id order,
+	 * to the given action once they are all done
+	 * @param ids of the applications, each given once
+	 * @param c command
+	 * @param applied action to pass the applied commands to, such as journaling them, or null
+	 * @return the outcome on each application, in the order of the ids
+	 */
+	Command.Outcome[] tryExecuteCommandOnAll(int[] ids, Command c, Consumer<List<IdCommand>> applied) {
+		Command.Outcome[] outcomes = new Command.Outcome[ids.length];
+		AtomicReference<RuntimeException> failure = new AtomicReference<RuntimeException>();
+		lock.readLock().lock();
+		try {
+			//the workers rely on the read lock held here, since taking it again could wait behind a writer
+			IntStream.range(0, ids.length).parallel().forEach(i -> {
+				try {
+					Application a = index.get(ids[i]);
+					if(a == null) {
+						outcomes[i] = Command.Outcome.NOT_FOUND;
+					}
+					else {
+						ReentrantLock stripe = stripes[ids[i] & (STRIPES - 1)];
+						stripe.lock();
+						try {
+							outcomes[i] = update(a, c);
+						}
+						finally {
+							stripe.unlock();
+						}
+					}
+				}
+				catch(RuntimeException e) {
+					failure.compareAndSet(null, e);
+				}
+			});
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+		if(applied != null) {
+			ArrayList<IdCommand> done = new ArrayList<IdCommand>();
+			for(int i = 0; i < ids.length; i++) {
+				if(outcomes[i] == Command.Outcome.APPLIED) {
+					done.add(new IdCommand(ids[i], c));
+				}
 			}
+			if(!done.isEmpty()) {
+				applied.accept(done);
+			}
+		}
+		if(failure.get() != null) {
+			throw failure.get();
 		}
+		return outcomes;
+	}
 	
+	/**
+	 * Executes a command on an application and reindexes it unless the command is
+	 * rejected. Must be called while holding the read lock and the application's stripe.
+	 * @param a application
+	 * @param c command 
+	 * @return APPLIED if the application was updated, or REJECTED if the command is not 
+	 * appropriate for its state
+	 */
+	private Command.Outcome update(Application a, Command c) {
+		int id = a.getAppId();
+		String type = a.getAppType();
+		String state = a.getStateName();
+		String resolution = a.getResolution();
+		String reviewer = a.getReviewer();
+		Command.Outcome outcome = Command.Outcome.APPLIED;
+		try {
+			outcome = a.tryUpdate(c);
+		}
+		finally {
+			//reindexed unless rejected, including when the update throws part way through
+			if(outcome == Command.Outcome.APPLIED) {
+				indexLock.lock();
+				try {
+					attributes.remove(id, type, state, resolution, reviewer);
+					attributes.add(a);
+					columns.update(a);
+					publish(a);
+				}
+				finally {
+					indexLock.unlock();
+				}
+			}
+		}
+		return outcome;
 	}
 	
+	/**
+	 * Executes a batch of commands without throwing if a command is not appropriate for
+	 * its application's state. The commands are grouped by application id in increasing
+	 * id order, keeping the order they were given in for each application, and each
+	 * application is found and reindexed once for all of its commands.
+	 * @param commands commands to execute with the ids of their applications
+	 * @return the outcome of each command, in the order the commands were given
+	 */
+	public Command.Outcome[] tryExecuteCommands(List<IdCommand> commands) {
+		return tryExecuteCommands(commands, null);
+	}
+
+	/**
+	 * Executes a batch of commands as tryExecuteCommands does, and passes the commands
+	 * that were applied, in the order they were applied, to the given action once the
+	 * batch is done or a command throws
+	 * @param commands commands to execute with the ids of their applications
+	 * @param applied action to pass the applied commands to, such as journaling them, or null
+	 * @return the outcome of each command, in the order the commands were given
+	 */
+	Command.Outcome[] tryExecuteCommands(List<IdCommand> commands, Consumer<List<IdCommand>> applied) {
+		int n = commands.size();
+		Integer[] order = new Integer[n];
+		boolean sorted = true;
+		for(int i = 0; i < n; i++) {
+			order[i] = i;
+			sorted &= i == 0 || commands.get(i - 1).getAppId() <= commands.get(i).getAppId();
+		}
+		if(!sorted) {
+			//the sort is stable, so the commands on each application keep their order
+			Arrays.sort(order, (x, y) -> Integer.compare(commands.get(x).getAppId(), commands.get(y).getAppId()));
+		}
+		Command.Outcome[] outcomes = new Command.Outcome[n];
+		ArrayList<IdCommand> done = new ArrayList<IdCommand>();
+		lock.readLock().lock();
+		try {
+			int start = 0;
+			while(start < n) {
+				int id = commands.get(order[start]).getAppId();
+				int end = start + 1;
+				while(end < n && commands.get(order[end]).getAppId() == id) {
+					end++;
+				}
+				Application a = index.get(id);
+				if(a == null) {
+					for(int i = start; i < end; i++) {
+						outcomes[order[i]] = Command.Outcome.NOT_FOUND;
+					}
+				}
+				else {
+					executeGroup(a, commands, order, start, end, outcomes, done);
+				}
+				start = end;
+			}
+		}
+		finally {
+			lock.readLock().unlock();
+			if(applied != null && !done.isEmpty()) {
+				applied.accept(done);
+			}
+		}
+		return outcomes;
+	}
+
+	/**
+	 * Executes the commands of one application in a batch under the application's stripe,
+	 * and reindexes the application once if any of them is applied. Must be called while
+	 * holding the read lock.
+	 * @param a application
+	 * @param commands commands of the batch
+	 * @param order positions of the commands in id order
+	 * @param start first position in order of the application's commands
+	 * @param end position in order just past the application's commands
+	 * @param outcomes outcome of each command of the batch
+	 * @param done commands of the batch applied so far
+	 */
+	private void executeGroup(Application a, List<IdCommand> commands, Integer[] order, int start, int end,
+			Command.Outcome[] outcomes, ArrayList<IdCommand> done) {
+		int id = a.getAppId();
+		ReentrantLock stripe = stripes[id & (STRIPES - 1)];
+		stripe.lock();
+		try {
+			String type = a.getAppType();
+			String state = a.getStateName();
+			String resolution = a.getResolution();
+			String reviewer = a.getReviewer();
+			boolean changed = false;
+			boolean finished = false;
+			try {
+				for(int i = start; i < end; i++) {
+					IdCommand c = commands.get(order[i]);
+					Command.Outcome outcome = a.tryUpdate(c.getCommand());
+					outcomes[order[i]] = outcome;
+					if(outcome == Command.Outcome.APPLIED) {
+						changed = true;
+						done.add(c);
+					}
+				}
+				finished = true;
+			}
+			finally {
+				//reindexed if any command was applied, or if an update threw part way through
+				//and so may have changed the application
+				if(changed || !finished) {
+					indexLock.lock();
+					try {
+						attributes.remove(id, type, state, resolution, reviewer);
+						attributes.add(a);
+						columns.update(a);
+						publish(a);
+					}
+					finally {
+						indexLock.unlock();
+					}
+				}
+			}
+		}
+		finally {
+			stripe.unlock();
+		}
+	}
+
 	/**
 	 * Deletes an application given its id
 	 * @param id of application
 	 */
 	public void deleteAppById(int id) {
-		for(int i = 0; i < apps.size(); i++) {
-			if(apps.get(i).getAppId() == id) {
-				apps.remove(i);
+		lock.writeLock().lock();
+		try {
+			Application a = index.remove(id);
+			if(a != null) {
+				attributes.remove(a);
+				columns.remove(id);
+				deleted++;
+				if(deleted > MIN_DELETED && deleted * 2 > apps.size()) {
+					removeDeleted();
+				}
+				AppTrie current = version;
+				if(current != null) {
+					version = current.remove(id);
+				}
 			}
 		}
+		finally {
+			lock.writeLock().unlock();
+		}
 		
 	}
 
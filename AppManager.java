@@ -1,26 +1,68 @@
 package edu.ncsu.csc216.app_manager.model.manager;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
 
 import edu.ncsu.csc216.app_manager.model.application.Application;
 import edu.ncsu.csc216.app_manager.model.application.Application.AppType;
 import edu.ncsu.csc216.app_manager.model.command.Command;
+import edu.ncsu.csc216.app_manager.model.command.IdCommand;
+import edu.ncsu.csc216.app_manager.model.io.AppJournal;
 import edu.ncsu.csc216.app_manager.model.io.AppReader;
 import edu.ncsu.csc216.app_manager.model.io.AppWriter;
+import edu.ncsu.csc216.app_manager.model.io.DeferredNoteFile;
 /**
  * AppManager Class is a concrete class that maintains a current list of Applications in the 
  * Application Manager system. Implements the Singleton Design Pattern
+ * 
+ * Changes to the list are made while holding the AppManager's lock, so that a background
+ * checkpoint sees a consistent list. The checkpoint only holds the lock while it takes an
+ * AppSnapshot of the list, not while it encodes and writes the snapshot file.
+ * 
+ * Commands do not take the AppManager's lock. They hold the command lock for reading, so
+ * commands from several threads run in parallel, locked against each other only by the
+ * AppList's per-application stripes, and each is journaled before another command can 
+ * change its application. Anything else that changes the list or the journal, and every
+ * checkpoint, also holds the command lock for writing, so it sees no command part way.
+ * Commands can also be submitted asynchronously to an AppCommandPipeline, whose writers
+ * execute them in order per application. Opening or closing a journal first closes the
+ * pipeline, so every queued command is executed and journaled before the journal 
+ * changes; the next submission starts a new one. A batch of commands, or a command executed on
+ * every application matching a query, holds the command lock for writing, so that it is
+ * journaled as one record in line with the commands around it.
  * @author Emilie Athanasenas
  */
 public class AppManager {
 	
 	
 	/** List of applications */
-	private AppList appList;
-	  
-	/** Instance of AppManager */
-	private static AppManager singleton;
+	private volatile AppList appList;
+	
+	/** Held for reading by commands, and for writing by other changes to the list or journal */
+	private final ReentrantReadWriteLock commandLock = new ReentrantReadWriteLock();
+	
+	/** Pipeline that submitted commands are executed by, or null until the first is submitted */
+	private volatile AppCommandPipeline pipeline;
+	
+	/** Journal that every change is recorded in, or null if changes are not journaled */
+	private AppJournal journal;
+	
+	/** Snapshot that the journal records are applied on top of */
+	private String snapshotFile;
+	
+	/** Background checkpointer for the journal, or null if checkpoints are only taken on request */
+	private AppCheckpointer checkpointer;
+	
+	/** True while a checkpoint is writing its snapshot */
+	private boolean checkpointing;
+	
+	/** Time of the last checkpoint, in milliseconds */
+	private long lastCheckpoint;
 	
 	/**
 	 * Constructs an instance of AppManager
@@ -35,10 +77,17 @@ public class AppManager {
 	 * @return the instance of AppManager
 	 */
 	public static AppManager getInstance() {
-		if(singleton == null) {
-			singleton = new AppManager();
-		}
-		return singleton;
+		return Holder.INSTANCE;
+	}
+	
+	/**
+	 * Holds the instance of AppManager, which is created the first time getInstance is 
+	 * called, by whichever thread calls it first
+	 */
+	private static class Holder {
+		
+		/** Instance of AppManager */
+		private static final AppManager INSTANCE = new AppManager();
 	}
 	
 	/**
@@ -46,26 +95,80 @@ public class AppManager {
 	 * @param fileName name of the file
 	 */
 	public void saveAppsToFile(String fileName) {
+		saveAppsToFile(fileName, false);
+	}
+	
+	/**
+	 * Saves the list of applications to a file, optionally with a sidecar index that lets
+	 * AppReader.readAppFromFile read single applications from the file by id
+	 * @param fileName name of the file
+	 * @param writeIndex true to also write the index file
+	 * @throws IllegalArgumentException if the file cannot be written
+	 */
+	public void saveAppsToFile(String fileName, boolean writeIndex) {
+		commandLock.writeLock().lock();
 		try {
 			List<Application> apps = appList.getApps();
-			AppWriter.writeAppsToFile(fileName, apps);
+			AppWriter.writeAppsToFile(fileName, apps, writeIndex);
 		}
 		catch(IllegalArgumentException e) {
 			throw new IllegalArgumentException("Unable to write file " + fileName);
 		}
+		finally {
+			commandLock.writeLock().unlock();
+		}
 		
 	}
 	
 	/**
-	 * Loads a list of applications from a file
+	 * Loads a list of applications from a file. Large files are memory mapped
+	 * and parsed in parallel.
 	 * @param fileName name of file
 	 * @throws IllegalArgumentException if the file is invalid
 	 */
 	public void loadAppsFromFile(String fileName) {
+		loadAppsFromFile(fileName, false);
+	}
+	
+	/**
+	 * Loads a list of applications from a file, optionally reading only the header line
+	 * of each application. With deferred notes the file is kept open, and the notes of an
+	 * application are read from it, through a cache of recently read notes, when they are
+	 * needed, such as when the application is opened or the list is saved. The file is
+	 * closed once neither the loaded applications nor any snapshot of them can read from
+	 * it, even after the list has been replaced.
+	 * @param fileName name of file
+	 * @param deferNotes true to leave the notes in the file until they are needed
+	 * @throws IllegalArgumentException if the file is invalid
+	 */
+	public void loadAppsFromFile(String fileName, boolean deferNotes) {
+		DeferredNoteFile notes = null;
 		try {
 			ArrayList<Application> apps = new ArrayList<Application>();
-			apps = AppReader.readAppsFromFile(fileName);
-			appList.addApps(apps);
+			if(deferNotes) {
+				notes = DeferredNoteFile.open(fileName, DeferredNoteFile.DEFAULT_CACHE_SIZE);
+				apps = AppReader.readAppsWithDeferredNotes(notes);
+			}
+			else if(new File(fileName).length() >= AppReader.MAPPED_LOAD_THRESHOLD) {
+				apps = AppReader.readAppsFromMappedFile(fileName);
+			}
+			else {
+				apps = AppReader.readAppsFromFile(fileName);
+			}
+			PendingCheckpoint pending;
+			synchronized(this) {
+				awaitCheckpoint();
+				commandLock.writeLock().lock();
+				try {
+					appList.addApps(apps);
+					notes = null;
+					pending = beginCheckpoint();
+				}
+				finally {
+					commandLock.writeLock().unlock();
+				}
+			}
+			finishCheckpoint(pending);
 			
 		}
 		catch(IllegalArgumentException e) {
@@ -74,13 +177,323 @@ public class AppManager {
 			
 			
 		}
+		finally {
+			if(notes != null) {
+				notes.close();
+			}
+		}
+	}
+	
+	/**
+	 * Saves the list of applications to a file in the binary snapshot format
+	 * @param fileName name of the file
+	 * @throws IllegalArgumentException if the file cannot be written
+	 */
+	public void saveAppsToSnapshot(String fileName) {
+		commandLock.writeLock().lock();
+		try {
+			AppWriter.writeAppsToSnapshot(fileName, appList.getApps());
+		}
+		catch(IllegalArgumentException e) {
+			throw new IllegalArgumentException("Unable to write file " + fileName);
+		}
+		finally {
+			commandLock.writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * Loads a list of applications from a file in the binary snapshot format
+	 * @param fileName name of file
+	 * @throws IllegalArgumentException if the file is invalid
+	 */
+	public void loadAppsFromSnapshot(String fileName) {
+		loadAppsFromSnapshot(fileName, false);
+	}
+	
+	/**
+	 * Loads the list of applications from a snapshot written by saveAppsToSnapshot, optionally
+	 * running the full checks on every application after it is loaded
+	 * @param fileName name of the file
+	 * @param verify true to check every application after loading
+	 * @throws IllegalArgumentException if the file cannot be read or an application is invalid
+	 */
+	public void loadAppsFromSnapshot(String fileName, boolean verify) {
+		try {
+			ArrayList<Application> apps = AppReader.readAppsFromSnapshot(fileName, verify);
+			PendingCheckpoint pending;
+			synchronized(this) {
+				awaitCheckpoint();
+				commandLock.writeLock().lock();
+				try {
+					appList.addApps(apps);
+					pending = beginCheckpoint();
+				}
+				finally {
+					commandLock.writeLock().unlock();
+				}
+			}
+			finishCheckpoint(pending);
+		}
+		catch(IllegalArgumentException e) {
+			throw new IllegalArgumentException("Unable to read file " + fileName);
+		}
+	}
+	
+	/**
+	 * Opens a journal that records every change made to the list of applications, so that
+	 * a change is saved by appending it to the journal instead of rewriting every application.
+	 * The list is recovered from the snapshot, if it exists, followed by the journal records
+	 * written after the snapshot.
+	 * @param snapshotFile name of the snapshot file
+	 * @param journalFile name of the journal file
+	 * @param groupCommit number of changes to journal between forced syncs, 1 to sync every 
+	 * change, or 0 to leave syncing to the system
+	 * @throws IllegalArgumentException if the snapshot or journal cannot be read
+	 */
+	public synchronized void openJournal(String snapshotFile, String journalFile, int groupCommit) {
+		closeCommandPipeline();
+		awaitCheckpoint();
+		commandLock.writeLock().lock();
+		try {
+			recoverJournal(snapshotFile, journalFile, groupCommit);
+		}
+		finally {
+			commandLock.writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * Recovers the list from a snapshot and journal and keeps the journal open. Must be 
+	 * called while holding the AppManager's lock and the command lock for writing.
+	 * @param snapshotFile name of the snapshot file
+	 * @param journalFile name of the journal file
+	 * @param groupCommit number of changes to journal between forced syncs
+	 * @throws IllegalArgumentException if the snapshot or journal cannot be read
+	 */
+	private void recoverJournal(String snapshotFile, String journalFile, int groupCommit) {
+		closeJournal();
+		createNewAppList();
+		long sequence = 0;
+		if(new File(snapshotFile).exists()) {
+			sequence = AppReader.readSnapshotSequence(snapshotFile);
+			appList.addApps(AppReader.readAppsFromSnapshot(snapshotFile));
+		}
+		AppJournal recovered = new AppJournal(journalFile, groupCommit);
+		try {
+			recovered.replay(sequence, this::replay);
+		}
+		catch(IllegalArgumentException | UnsupportedOperationException e) {
+			recovered.close();
+			createNewAppList();
+			throw new IllegalArgumentException("Unable to read file " + journalFile);
+		}
+		recovered.advanceSequence(sequence);
+		journal = recovered;
+		this.snapshotFile = snapshotFile;
+		lastCheckpoint = System.currentTimeMillis();
+	}
+	
+	/**
+	 * Applies a journal record to the list of applications
+	 * @param entry journal record to apply
+	 */
+	private void replay(AppJournal.Entry entry) {
+		switch(entry.getOperation()) {
+			case ADD:
+				appList.restoreApp(entry.getAppId(), entry.getAppType(), entry.getSummary(), entry.getNote());
+				break;
+			case COMMAND:
+				appList.executeCommand(entry.getAppId(), entry.getCommand());
+				break;
+			case DELETE:
+				appList.deleteAppById(entry.getAppId());
+				break;
+			case BATCH:
+				for(Command.Outcome outcome : appList.tryExecuteCommands(entry.getCommands())) {
+					if(outcome == Command.Outcome.REJECTED) {
+						throw new UnsupportedOperationException("Invalid information.");
+					}
+				}
+				break;
+			default:
+				break;
+		}
+	}
+	
+	/**
+	 * Writes a snapshot of the list of applications and drops the journal records it covers. 
+	 * Changes can continue while the snapshot is written. Does nothing if no journal is open.
+	 * @throws IllegalArgumentException if the snapshot cannot be written
+	 */
+	public void checkpoint() {
+		PendingCheckpoint pending;
+		synchronized(this) {
+			awaitCheckpoint();
+			commandLock.writeLock().lock();
+			try {
+				pending = beginCheckpoint();
+			}
+			finally {
+				commandLock.writeLock().unlock();
+			}
+		}
+		finishCheckpoint(pending);
+	}
+	
+	/**
+	 * Starts checkpointing the journal in the background whenever it grows past the given size 
+	 * or number of records, or the given time has passed since the last checkpoint. A trigger 
+	 * of 0 is never reached. Any earlier background checkpointer is stopped.
+	 * @param maxJournalBytes journal size in bytes that triggers a checkpoint, or 0
+	 * @param maxJournalRecords number of journal records that triggers a checkpoint, or 0
+	 * @param maxMillis time since the last checkpoint, in milliseconds, that triggers a checkpoint, or 0
+	 * @throws IllegalArgumentException if no journal is open or the triggers are invalid
+	 */
+	public synchronized void startCheckpointer(long maxJournalBytes, long maxJournalRecords, long maxMillis) {
+		if(journal == null) {
+			throw new IllegalArgumentException("No journal is open.");
+		}
+		stopCheckpointer();
+		checkpointer = new AppCheckpointer(this, maxJournalBytes, maxJournalRecords, maxMillis);
+	}
+	
+	/**
+	 * Stops checkpointing the journal in the background, if a background checkpointer is running
+	 */
+	public synchronized void stopCheckpointer() {
+		if(checkpointer != null) {
+			checkpointer.stop();
+			checkpointer = null;
+		}
+	}
+	
+	/**
+	 * Returns the failure of the last checkpoint taken by the background checkpointer, 
+	 * which keeps running after a checkpoint fails
+	 * @return the exception the checkpoint failed with, or null if it succeeded, none has
+	 * been taken, or no background checkpointer is running
+	 */
+	public synchronized RuntimeException getCheckpointFailure() {
+		return checkpointer == null ? null : checkpointer.getLastFailure();
+	}
+	
+	/**
+	 * Returns true if the journal has reached any of the given checkpoint triggers
+	 * @param maxJournalBytes journal size in bytes, or 0
+	 * @param maxJournalRecords number of journal records, or 0
+	 * @param maxMillis time since the last checkpoint, in milliseconds, or 0
+	 * @return true if a checkpoint should be taken
+	 */
+	synchronized boolean checkpointDue(long maxJournalBytes, long maxJournalRecords, long maxMillis) {
+		if(journal == null || checkpointing || journal.getRecordCount() == 0) {
+			return false;
+		}
+		return (maxJournalBytes > 0 && journal.getSize() >= maxJournalBytes)
+				|| (maxJournalRecords > 0 && journal.getRecordCount() >= maxJournalRecords)
+				|| (maxMillis > 0 && System.currentTimeMillis() - lastCheckpoint >= maxMillis);
+	}
+	
+	/**
+	 * Takes an unchanging view of the list of applications and rotates the journal. 
+	 * Must be called while holding the AppManager's lock and the command lock for writing,
+	 * after waiting with awaitCheckpoint for any checkpoint still writing its snapshot 
+	 * before the command lock was taken, so that commands are not held up by the write.
+	 * No checkpoint can start while the AppManager's lock is held, so the check here 
+	 * finds none.
+	 * @return the checkpoint to finish, or null if no journal is open
+	 */
+	private PendingCheckpoint beginCheckpoint() {
+		awaitCheckpoint();
+		if(journal == null) {
+			return null;
+		}
+		long sequence = journal.getSequence();
+		AppSnapshot apps = appList.snapshot();
+		journal.rotate();
+		checkpointing = true;
+		return new PendingCheckpoint(snapshotFile, apps, sequence, journal);
+	}
+	
+	/**
+	 * Encodes and writes the snapshot of a checkpoint and deletes the journal records it covers.
+	 * Must be called without holding the AppManager's lock.
+	 * @param pending checkpoint to finish, or null
+	 * @throws IllegalArgumentException if the snapshot cannot be written
+	 */
+	private void finishCheckpoint(PendingCheckpoint pending) {
+		if(pending == null) {
+			return;
+		}
+		try {
+			byte[] image = AppWriter.encodeSnapshot(pending.apps.getApps(), pending.sequence);
+			AppWriter.writeSnapshotImage(pending.snapshotFile, image);
+			pending.journal.discardRotated();
+		}
+		finally {
+			synchronized(this) {
+				checkpointing = false;
+				lastCheckpoint = System.currentTimeMillis();
+				notifyAll();
+			}
+		}
+	}
+	
+	/**
+	 * Waits until no checkpoint is writing its snapshot. Must be called while holding the
+	 * AppManager's lock but not the command lock, since waiting releases only the former.
+	 * @throws IllegalArgumentException if the thread is interrupted while waiting
+	 */
+	private void awaitCheckpoint() {
+		while(checkpointing) {
+			try {
+				wait();
+			}
+			catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalArgumentException("Unable to save file");
+			}
+		}
+	}
+	
+	/**
+	 * Syncs and closes the journal, if one is open, after executing every command already
+	 * submitted. Later changes are not journaled.
+	 */
+	public synchronized void closeJournal() {
+		closeCommandPipeline();
+		stopCheckpointer();
+		awaitCheckpoint();
+		commandLock.writeLock().lock();
+		try {
+			if(journal != null) {
+				journal.close();
+				journal = null;
+				snapshotFile = null;
+			}
+		}
+		finally {
+			commandLock.writeLock().unlock();
+		}
 	}
 	
 	/**
 	 * Creates a new application list
 	 */
 	public void createNewAppList() {
-		appList = new AppList();
+		PendingCheckpoint pending;
+		synchronized(this) {
+			awaitCheckpoint();
+			commandLock.writeLock().lock();
+			try {
+				appList = new AppList();
+				pending = beginCheckpoint();
+			}
+			finally {
+				commandLock.writeLock().unlock();
+			}
+		}
+		finishCheckpoint(pending);
 	}
 	
 	/**
@@ -89,14 +502,7 @@ public class AppManager {
 
 	 */
 	public Object[][] getAppListAsArray(){
-		Object[][] appListArr = new Object[appList.getApps().size()][4];
-		for(int i = 0; i < appList.getApps().size(); i++) {
-			appListArr[i][0] = appList.getApps().get(i).getAppId();
-			appListArr[i][1] = appList.getApps().get(i).getStateName();
-			appListArr[i][2] = appList.getApps().get(i).getAppType();
-			appListArr[i][3] = appList.getApps().get(i).getSummary();
-		}
-		return appListArr;
+		return appList.getAppsAsArray();
 	}
 	
 	/**
@@ -110,20 +516,30 @@ public class AppManager {
 			throw new IllegalArgumentException("Invalid application type.");
 		}
 		else if("New".equals(type) || "Old".equals(type) || "Hired".equals(type)) {
-			List<Application> appTypes = appList.getAppsByType(type);
-			Object[][] appTypeArr = new Object[appTypes.size()][4];
-			for(int i = 0; i < appTypes.size(); i++) {
-				appTypeArr[i][0] = appTypes.get(i).getAppId();
-				appTypeArr[i][1] = appTypes.get(i).getStateName();
-				appTypeArr[i][2] = appTypes.get(i).getAppType();
-				appTypeArr[i][3] = appTypes.get(i).getSummary();
-			}
-			return appTypeArr;	
+			return appList.getAppsAsArrayByType(type);
 		}
 		
 		return new Object[0][0];
 	}
 	
+	/**
+	 * Starts a query over the current list of applications that can combine types, 
+	 * states, resolutions and reviewers
+	 * @return a query matching every application
+	 */
+	public AppQuery query() {
+		return appList.query();
+	}
+	
+	/**
+	 * Takes a snapshot of the current list of applications that reports can read for as
+	 * long as they need without blocking, or being affected by, later changes
+	 * @return the snapshot
+	 */
+	public AppSnapshot snapshot() {
+		return appList.snapshot();
+	}
+	
 	/**
 	 * Returns an application based on its id
 	 * @param id of application
@@ -139,16 +555,155 @@ public class AppManager {
 	 * @param c command 
 	 */
 	public void executeCommand(int id, Command c) {
-		appList.executeCommand(id, c);
+		if(tryExecuteCommand(id, c) == Command.Outcome.REJECTED) {
+			throw new UnsupportedOperationException("Invalid information.");
+		}
 		
 	}
 	
+	/**
+	 * Executes a command on an application without throwing if the command is not
+	 * appropriate for the application's state. Only applied commands are journaled.
+	 * @param id of application
+	 * @param c command 
+	 * @return APPLIED if the application was updated, REJECTED if the command is not 
+	 * appropriate for its state, or NOT_FOUND if there is no application with the id
+	 */
+	public Command.Outcome tryExecuteCommand(int id, Command c) {
+		commandLock.readLock().lock();
+		try {
+			AppJournal current = journal;
+			return appList.tryExecuteCommand(id, c, current == null ? null : () -> current.appendCommand(id, c));
+		}
+		finally {
+			commandLock.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Executes a batch of commands on applications without throwing if a command is not
+	 * appropriate for its application's state. Each application is found once for all of
+	 * its commands, which are executed in the order they are given, and the applied 
+	 * commands are journaled together as one record.
+	 * @param commands commands to execute with the ids of their applications
+	 * @return the outcome of each command, in the order the commands were given: APPLIED,
+	 * REJECTED or NOT_FOUND, as returned by tryExecuteCommand
+	 * @throws IllegalArgumentException if the list or any of its commands is null
+	 */
+	public List<Command.Outcome> executeCommands(List<IdCommand> commands) {
+		if(commands == null) {
+			throw new IllegalArgumentException("Invalid information.");
+		}
+		for(IdCommand c : commands) {
+			if(c == null) {
+				throw new IllegalArgumentException("Invalid information.");
+			}
+		}
+		commandLock.writeLock().lock();
+		try {
+			AppJournal current = journal;
+			return Arrays.asList(appList.tryExecuteCommands(commands, current == null ? null : current::appendBatch));
+		}
+		finally {
+			commandLock.writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * Executes a command on every application that matches a query, such as rejecting
+	 * every application in the Interview state assigned to a reviewer. The query is 
+	 * evaluated on the list's indexes while no other change can be made, and the command
+	 * is then executed on the matching applications in parallel. The applied commands
+	 * are journaled together as one record.
+	 * @param filter narrows the query it is given to the applications to change, as in
+	 * q -> q.withState("Interview").withReviewer("jdoe")
+	 * @param c command 
+	 * @return the number of applications the command was applied to and rejected by
+	 * @throws IllegalArgumentException if the filter or command is null, or the filter 
+	 * gives an invalid value
+	 */
+	public TransitionCounts executeCommandOnMatches(UnaryOperator<AppQuery> filter, Command c) {
+		if(filter == null || c == null) {
+			throw new IllegalArgumentException("Invalid information.");
+		}
+		commandLock.writeLock().lock();
+		try {
+			AppQuery matches = filter.apply(appList.query());
+			if(matches == null) {
+				throw new IllegalArgumentException("Invalid query.");
+			}
+			AppJournal current = journal;
+			Command.Outcome[] outcomes = appList.tryExecuteCommandOnAll(matches.getIds(), c, 
+					current == null ? null : current::appendBatch);
+			int applied = 0;
+			int rejected = 0;
+			for(Command.Outcome outcome : outcomes) {
+				if(outcome == Command.Outcome.APPLIED) {
+					applied++;
+				}
+				else if(outcome == Command.Outcome.REJECTED) {
+					rejected++;
+				}
+			}
+			return new TransitionCounts(applied, rejected);
+		}
+		finally {
+			commandLock.writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * Submits a command on an application to be executed asynchronously. Commands on the
+	 * same application are executed in the order they are submitted, and commands on other
+	 * applications may be executed in parallel with them. The command is journaled when it 
+	 * is applied, as it is by tryExecuteCommand.
+	 * @param id of application
+	 * @param c command 
+	 * @return a future completed with APPLIED, REJECTED or NOT_FOUND, as returned by 
+	 * tryExecuteCommand, or exceptionally if the command could not be executed
+	 */
+	public CompletableFuture<Command.Outcome> submitCommand(int id, Command c) {
+		AppCommandPipeline current = pipeline;
+		CompletableFuture<Command.Outcome> result = current == null ? null : current.submit(id, c);
+		if(result == null) {
+			//no pipeline yet, or it was closed after it was read; one cannot be closed while the lock is held
+			synchronized(this) {
+				if(pipeline == null) {
+					pipeline = new AppCommandPipeline(this);
+				}
+				result = pipeline.submit(id, c);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Stops the pipeline that submitted commands are executed by, waiting until every 
+	 * command already submitted has been executed. A later submission starts a new pipeline.
+	 * Must not be called while holding the command lock, which the pipeline's writers need.
+	 */
+	public synchronized void closeCommandPipeline() {
+		if(pipeline != null) {
+			pipeline.close();
+			pipeline = null;
+		}
+	}
+	
 	/**
 	 * Deletes an application by its id
 	 * @param id of application to be deleted
 	 */
 	public void deleteAppById(int id) {
-		appList.deleteAppById(id);
+		commandLock.writeLock().lock();
+		try {
+			appList.deleteAppById(id);
+			if(journal != null) {
+				journal.appendDelete(id);
+			}
+		}
+		finally {
+			commandLock.writeLock().unlock();
+		}
 		
 	}
 	
@@ -159,7 +714,87 @@ public class AppManager {
 	 * @param note of application
 	 */
 	public void addAppToList(AppType type, String summary, String note) {
-		appList.addApp(type, summary, note);
+		commandLock.writeLock().lock();
+		try {
+			int id = appList.addApp(type, summary, note);
+			if(journal != null) {
+				journal.appendAdd(id, type, summary, note);
+			}
+		}
+		finally {
+			commandLock.writeLock().unlock();
+		}
+		
+	}
+	
+	/**
+	 * The numbers of applications that a command executed on every match of a query was
+	 * applied to and rejected by
+	 */
+	public static class TransitionCounts {
+		
+		/** Number of applications the command was applied to */
+		private final int applied;
+		
+		/** Number of applications whose state the command was not appropriate for */
+		private final int rejected;
+		
+		/**
+		 * Constructs a TransitionCounts
+		 * @param applied number of applications the command was applied to
+		 * @param rejected number of applications that rejected the command
+		 */
+		TransitionCounts(int applied, int rejected) {
+			this.applied = applied;
+			this.rejected = rejected;
+		}
 		
+		/**
+		 * Gets and returns the number of applications the command was applied to
+		 * @return the number of applied transitions
+		 */
+		public int getApplied() {
+			return applied;
+		}
+		
+		/**
+		 * Gets and returns the number of applications that rejected the command
+		 * @return the number of rejected transitions
+		 */
+		public int getRejected() {
+			return rejected;
+		}
+	}
+	
+	/**
+	 * A checkpoint whose snapshot image has been taken but not yet written
+	 */
+	private static class PendingCheckpoint {
+		
+		/** Name of the snapshot file */
+		private final String snapshotFile;
+		
+		/** Unchanging view of the list to write */
+		private final AppSnapshot apps;
+		
+		/** Number of the last journal record included in the view */
+		private final long sequence;
+		
+		/** Journal whose rotated records the snapshot covers */
+		private final AppJournal journal;
+		
+		/**
+		 * Constructs a PendingCheckpoint
+		 * @param snapshotFile name of the snapshot file
+		 * @param apps unchanging view of the list to write
+		 * @param sequence number of the last journal record included in the view
+		 * @param journal whose rotated records the snapshot covers
+		 */
+		PendingCheckpoint(String snapshotFile, AppSnapshot apps, long sequence, AppJournal journal) {
+			this.snapshotFile = snapshotFile;
+			this.apps = apps;
+			this.sequence = sequence;
+			this.journal = journal;
+		}
 	}
 }
@@ -0,0 +1,169 @@
+package edu.ncsu.csc216.app_manager.model.manager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import edu.ncsu.csc216.app_manager.model.application.Application;
+
+/**
+ * AppQuery finds the applications that match a combination of types, states,
+ * resolutions and reviewers, such as every Old application in the Waitlist state with
+ * the InterviewCompleted resolution. Each call narrows the query: the values given in
+ * one call are alternatives, and separate calls must all match. The filters are kept
+ * and evaluated on the current id bitmaps of an AppList each time the result is asked
+ * for, so a query reflects applications added, deleted or changed since it was built,
+ * and no applications are looked at until then.
+ */
+public class AppQuery {
+
+	/** List being queried */
+	private final AppList list;
+
+	/** Filters that must all match, each giving the ids matching it in an attribute index */
+	private final ArrayList<Filter> filters = new ArrayList<Filter>();
+
+	/**
+	 * Constructs a query that matches every application in a list
+	 * @param list to query
+	 */
+	AppQuery(AppList list) {
+		this.list = list;
+	}
+
+	/**
+	 * Keeps the applications of any of the given types
+	 * @param types of application
+	 * @return this query
+	 * @throws IllegalArgumentException if a type is null
+	 */
+	public AppQuery withType(String... types) {
+		return narrow(types, AppAttributeIndex::type);
+	}
+
+	/**
+	 * Keeps the applications in any of the given states
+	 * @param states names of the states
+	 * @return this query
+	 * @throws IllegalArgumentException if a state is null
+	 */
+	public AppQuery withState(String... states) {
+		return narrow(states, AppAttributeIndex::state);
+	}
+
+	/**
+	 * Keeps the applications with any of the given resolutions
+	 * @param resolutions of application
+	 * @return this query
+	 * @throws IllegalArgumentException if a resolution is null
+	 */
+	public AppQuery withResolution(String... resolutions) {
+		return narrow(resolutions, AppAttributeIndex::resolution);
+	}
+
+	/**
+	 * Keeps the applications assigned to any of the given reviewers
+	 * @param reviewers ids of the reviewers
+	 * @return this query
+	 * @throws IllegalArgumentException if a reviewer is null
+	 */
+	public AppQuery withReviewer(String... reviewers) {
+		return narrow(reviewers, AppAttributeIndex::reviewer);
+	}
+
+	/**
+	 * Returns the number of applications that match the query
+	 * @return the number of matches
+	 */
+	public int count() {
+		return filters.isEmpty() ? list.size() : list.readIndex(() -> evaluate().cardinality());
+	}
+
+	/**
+	 * Returns the applications that match the query
+	 * @return a new list of the matches, in id order
+	 */
+	public List<Application> getApps() {
+		return filters.isEmpty() ? list.getApps() : list.readIndex(() -> list.attributes().select(evaluate()));
+	}
+
+	/**
+	 * Returns the ids of the applications that match the query
+	 * @return the ids of the matches, in increasing order
+	 */
+	int[] getIds() {
+		if(filters.isEmpty()) {
+			return list.getApps().stream().mapToInt(Application::getAppId).toArray();
+		}
+		return list.readIndex(() -> {
+			AppBitmap ids = evaluate();
+			int[] found = new int[ids.cardinality()];
+			int[] n = new int[1];
+			ids.forEach(id -> found[n[0]++] = id);
+			return found;
+		});
+	}
+
+	/**
+	 * Adds a filter matching any of the given values of an attribute
+	 * @param values of the attribute
+	 * @param group gives the ids with one value of the attribute
+	 * @return this query
+	 * @throws IllegalArgumentException if a value is null
+	 */
+	private AppQuery narrow(String[] values, BiFunction<AppAttributeIndex, String, AppBitmap> group) {
+		for(String value : values) {
+			check(value);
+		}
+		String[] kept = values.clone();
+		filters.add(index -> {
+			AppBitmap match = new AppBitmap();
+			for(String value : kept) {
+				match = match.or(group.apply(index, value));
+			}
+			return match;
+		});
+		return this;
+	}
+
+	/**
+	 * Intersects the ids matching each filter in the list's current attribute index.
+	 * Must be called inside readIndex, with at least one filter.
+	 * @return the ids matching the query
+	 */
+	private AppBitmap evaluate() {
+		AppAttributeIndex index = list.attributes();
+		AppBitmap ids = null;
+		for(Filter f : filters) {
+			AppBitmap match = f.match(index);
+			ids = ids == null ? match : ids.and(match);
+		}
+		return ids;
+	}
+
+	/**
+	 * Checks that a filter value is not null
+	 * @param value to check
+	 * @return the value
+	 * @throws IllegalArgumentException if the value is null
+	 */
+	private static String check(String value) {
+		if(value == null) {
+			throw new IllegalArgumentException("Invalid query.");
+		}
+		return value;
+	}
+
+	/**
+	 * A filter of the query
+	 */
+	private interface Filter {
+
+		/**
+		 * Returns the ids matching the filter
+		 * @param index attribute index of the list
+		 * @return the matching ids
+		 */
+		AppBitmap match(AppAttributeIndex index);
+	}
+}
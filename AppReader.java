@@ -1,11 +1,19 @@
 package edu.ncsu.csc216.app_manager.model.io;
-import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Scanner;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
 
 import edu.ncsu.csc216.app_manager.model.application.Application;
+import edu.ncsu.csc216.app_manager.model.application.ReviewerDictionary;
+import edu.ncsu.csc216.app_manager.model.command.Command.Resolution;
 /**
  * AppReader class handles the I/O functionality of the Application Manager
  * system
@@ -13,72 +21,219 @@ import edu.ncsu.csc216.app_manager.model.application.Application;
  */
 public class AppReader {
 	
+	/** Size in bytes above which a file is worth loading with readAppsFromMappedFile */
+	public static final long MAPPED_LOAD_THRESHOLD = 32L << 20;
+	
 	/**
 	 * Reads in a file and creates an ArrayList of applications
 	 * @param fileName name of the file
 	 * @return an ArrayList of applications
-	 * @throws FileNotFoundException if the file cannot be found
-	 * @throws IllegalArgumentException if there are any errors processing the file
+	 * @throws IllegalArgumentException if the file cannot be found or there are any errors processing the file
 	 */
 	public static ArrayList<Application> readAppsFromFile(String fileName){
 		ArrayList<Application> applications = new ArrayList<Application>();
-		StringBuilder fileContent = new StringBuilder();
+		try(AppRecordParser parser = AppRecordParser.open(fileName)) {
+			while(parser.hasNext()) {
+				applications.add(parser.next());
+			}
+		}
+		return applications;
 		
-		try(Scanner fileReader = new Scanner(new File(fileName))){
-			while(fileReader.hasNextLine()) {
-				fileContent.append(fileReader.nextLine()).append("\n");
-			}	
+	}
+	
+	/**
+	 * Reads in a file by memory mapping it and parsing it in parallel. The file is cut into
+	 * chunks at record boundaries and the chunks are parsed on the common fork-join pool.
+	 * @param fileName name of the file
+	 * @return an ArrayList of applications in id order
+	 * @throws IllegalArgumentException if the file cannot be found or there are any errors processing the file
+	 */
+	public static ArrayList<Application> readAppsFromMappedFile(String fileName) {
+		return MappedAppLoader.load(fileName);
+	}
+	
+	/**
+	 * Reads only the header line of each record in an open application file. The notes
+	 * of each application are left in the file, which records where each application's
+	 * note block is, and are read back through it when they are needed.
+	 * @param notes the open file, which must stay open while the applications are used
+	 * @return an ArrayList of applications whose notes are deferred
+	 * @throws IllegalArgumentException if the file cannot be read or there are any errors processing the file
+	 */
+	public static ArrayList<Application> readAppsWithDeferredNotes(DeferredNoteFile notes) {
+		return notes.readApps();
+	}
+	
+	/**
+	 * Reads one application from a file written with a sidecar index, by binary search of
+	 * the index and one read of the file, without loading the rest of the file
+	 * @param fileName name of the file
+	 * @param id of the application
+	 * @return the application, or null if there is no application with the id in the file
+	 * @throws IllegalArgumentException if either file cannot be read, or the index is 
+	 * damaged or does not match the file
+	 */
+	public static Application readAppFromFile(String fileName, int id) {
+		try(AppFileIndex index = AppFileIndex.open(fileName)) {
+			return index.find(id);
 		}
-		catch(FileNotFoundException e) {
+	}
+	
+	/**
+	 * Returns a sequential stream of the applications in a file. Records are parsed
+	 * as the stream is consumed, so only one record is held in memory at a time.
+	 * The stream should be closed once it is no longer needed.
+	 * @param fileName name of the file
+	 * @return a stream of applications
+	 * @throws IllegalArgumentException if the file cannot be found or there are any errors processing the file
+	 */
+	public static Stream<Application> streamAppsFromFile(String fileName) {
+		AppRecordParser parser = AppRecordParser.open(fileName);
+		Spliterator<Application> records = Spliterators.spliteratorUnknownSize(parser, 
+				Spliterator.ORDERED | Spliterator.NONNULL);
+		return StreamSupport.stream(records, false).onClose(parser::close);
+	}
+	
+	/**
+	 * Reads in a file written by AppWriter.writeAppsToSnapshot and creates an ArrayList of applications
+	 * @param fileName name of the file
+	 * @return an ArrayList of applications
+	 * @throws IllegalArgumentException if the file cannot be found, is not a supported snapshot,
+	 * or there are any errors processing the file
+	 */
+	public static ArrayList<Application> readAppsFromSnapshot(String fileName) {
+		return readAppsFromSnapshot(fileName, false);
+	}
+	
+	/**
+	 * Reads in a file written by AppWriter.writeAppsToSnapshot and creates an ArrayList of applications.
+	 * Applications in a snapshot whose checksum matches are restored without revalidation; 
+	 * applications in older snapshots without a checksum go through the full checks. 
+	 * If verify is true, every application is also checked afterwards, in parallel, as if
+	 * it had been read from an untrusted file.
+	 * @param fileName name of the file
+	 * @param verify true to check every application after loading
+	 * @return an ArrayList of applications
+	 * @throws IllegalArgumentException if the file cannot be found, is not a supported snapshot,
+	 * its checksum does not match, or there are any errors processing the file
+	 */
+	public static ArrayList<Application> readAppsFromSnapshot(String fileName, boolean verify) {
+		try(FileInputStream file = new FileInputStream(fileName)) {
+			CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(file, 1 << 16), new CRC32());
+			DataInputStream in = new DataInputStream(checked);
+			byte version = readSnapshotVersion(in);
+			if(version != SnapshotFormat.VERSION_1) {
+				in.readLong();
+			}
+			int count = in.readInt();
+			if(count < 0) {
+				throw new IllegalArgumentException("Invalid application data.");
+			}
+			boolean trusted = version == SnapshotFormat.VERSION;
+			ArrayList<Application> applications = new ArrayList<Application>(Math.min(count, 1 << 20));
+			ReviewerDictionary reviewers = new ReviewerDictionary();
+			for(int i = 0; i < count; i++) {
+				applications.add(readSnapshotRecord(in, trusted, reviewers));
+			}
+			if(trusted) {
+				int checksum = (int) checked.getChecksum().getValue();
+				if(in.readInt() != checksum) {
+					throw new IllegalArgumentException("Invalid application data.");
+				}
+			}
+			if(verify) {
+				verifyApps(applications);
+			}
+			return applications;
+		}
+		catch(IOException e) {
 			throw new IllegalArgumentException("Unable to load file.");
 		}
-		String fileString = fileContent.toString();
-		String[] appStrings = fileString.split("\\r?\\n?[*]");
-		
-		for(String appString: appStrings) {
-			if(!appString.isEmpty()) {
-				applications.add(processApp(appString));
-			}
-			
+	}
+	
+	/**
+	 * Runs the checks of the Application constructor on every application, in parallel
+	 * @param applications to check
+	 * @throws IllegalArgumentException if any application is invalid
+	 */
+	private static void verifyApps(ArrayList<Application> applications) {
+		try {
+			applications.parallelStream().forEach(a -> new Application(a.getAppId(), a.getStateName(), a.getAppType(), 
+					a.getSummary(), a.getReviewer() == null ? "" : a.getReviewer(), a.isProcessed(),
+					a.getResolution() == null ? "" : a.getResolution(), a.getNotes()));
+		}
+		catch(IllegalArgumentException e) {
+			throw new IllegalArgumentException("Invalid application data.");
 		}
-		return applications;
-		
 	}
+	
 	/**
-	 * Reads in a String value and processes it as an Application
-	 * @param app to be created as an Application object
-	 * @return an Application object 
-	 * @throws IllegalArgumentException if there are any problems processing the application
+	 * Reads the sequence number of the last journal record covered by a snapshot
+	 * @param fileName name of the file
+	 * @return the sequence number, or 0 if the snapshot does not record one
+	 * @throws IllegalArgumentException if the file cannot be found or is not a supported snapshot
 	 */
-	private static  Application processApp(String app) {
-		String[] lines = app.split("\\r?\\n");
-		String applicationLine = lines[0];
-		String[] parse = applicationLine.split(",");
-		
-		if(parse.length < 6) {
+	public static long readSnapshotSequence(String fileName) {
+		try(DataInputStream in = new DataInputStream(new FileInputStream(fileName))) {
+			return readSnapshotVersion(in) == SnapshotFormat.VERSION_1 ? 0 : in.readLong();
+		}
+		catch(IOException e) {
+			throw new IllegalArgumentException("Unable to load file.");
+		}
+	}
+	
+	/**
+	 * Reads and checks the magic number and version at the start of a snapshot
+	 * @param in stream to read from
+	 * @return the version of the snapshot
+	 * @throws IOException if the stream cannot be read
+	 * @throws IllegalArgumentException if the stream is not a supported snapshot
+	 */
+	private static byte readSnapshotVersion(DataInputStream in) throws IOException {
+		if(in.readInt() != SnapshotFormat.MAGIC) {
 			throw new IllegalArgumentException("Invalid application data.");
 		}
-		
-		int appId = Integer.parseInt(parse[0]);
-		String state = parse[1];
-		String appType = parse[2];
-		String summary = parse[3];
-		String reviewer = parse.length > 5 ? parse[4] : "";
-		boolean processPaperwork = Boolean.parseBoolean(parse[5]);
-		
-		String resolution = "";
-		ArrayList<String> notes = new ArrayList<>();
-		
-		if(parse.length > 6) {
-			resolution = parse[6];
+		byte version = in.readByte();
+		if(version != SnapshotFormat.VERSION_1 && version != SnapshotFormat.VERSION_2 && version != SnapshotFormat.VERSION) {
+			throw new IllegalArgumentException("Invalid application data.");
 		}
-		
-		notes = new ArrayList<>(Arrays.asList(app.substring(app.indexOf("-") + 1).split("-")));
-		for(int i = 0; i < notes.size(); i++) {
-			notes.set(i, notes.get(i).trim());
-			
+		return version;
+	}
+	
+	/**
+	 * Reads one application in the binary snapshot format
+	 * @param in stream to read from
+	 * @param trusted true if the snapshot is checksummed, so the application does not need to be revalidated
+	 * @param reviewers dictionary to share reviewer ids through
+	 * @return the application read
+	 * @throws IOException if the stream cannot be read
+	 * @throws IllegalArgumentException if the record is invalid
+	 */
+	private static Application readSnapshotRecord(DataInputStream in, boolean trusted, ReviewerDictionary reviewers) 
+			throws IOException {
+		int appId = in.readInt();
+		String state = SnapshotFormat.decode(SnapshotFormat.STATES, in.readByte());
+		byte typeCode = in.readByte();
+		byte resolutionCode = in.readByte();
+		int flags = in.readUnsignedByte();
+		boolean processed = (flags & SnapshotFormat.FLAG_PROCESSED) != 0;
+		String summary = SnapshotFormat.readString(in);
+		String reviewer = (flags & SnapshotFormat.FLAG_REVIEWER) != 0 ? reviewers.canonical(SnapshotFormat.readString(in)) : null;
+		int noteCount = SnapshotFormat.readVarInt(in);
+		ArrayList<String> notes = new ArrayList<String>(Math.min(noteCount, 16));
+		for(int i = 0; i < noteCount; i++) {
+			notes.add(SnapshotFormat.readString(in));
+		}
+		if(trusted) {
+			Resolution resolution = resolutionCode == SnapshotFormat.NO_RESOLUTION ? null
+					: SnapshotFormat.decode(SnapshotFormat.RESOLUTION_VALUES, resolutionCode);
+			return Application.fromTrusted(appId, state, SnapshotFormat.decode(SnapshotFormat.TYPE_VALUES, typeCode), 
+					summary, reviewer, processed, resolution, notes);
 		}
-		return new Application(appId, state, appType, summary, reviewer, processPaperwork, resolution, notes);
+		String resolution = resolutionCode == SnapshotFormat.NO_RESOLUTION ? "" 
+				: SnapshotFormat.decode(SnapshotFormat.RESOLUTIONS, resolutionCode);
+		return new Application(appId, state, SnapshotFormat.decode(SnapshotFormat.TYPES, typeCode), summary, 
+				reviewer == null ? "" : reviewer, processed, resolution, notes);
 	}
 
 }
@@ -0,0 +1,260 @@
+package edu.ncsu.csc216.app_manager.model.io;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import edu.ncsu.csc216.app_manager.model.application.Application;
+import edu.ncsu.csc216.app_manager.model.application.ReviewerDictionary;
+
+/**
+ * AppRecordParser reads Applications one record at a time from a stream of
+ * application text. A record starts with a line beginning with '*' and is followed
+ * by note lines beginning with '-'. Only the record being parsed is held in memory.
+ */
+public class AppRecordParser implements Iterator<Application>, Closeable {
+
+	/** Size of the character buffer used when reading from a file */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** Reader that the records are read from */
+	private final BufferedReader reader;
+
+	/** Header line of the next record, or null if there are no more records */
+	private String nextHeader;
+
+	/** Dictionary that makes records with the same reviewer share one String */
+	private final ReviewerDictionary reviewers;
+
+	/**
+	 * Constructs an AppRecordParser that reads records from the given reader
+	 * @param in reader to parse records from
+	 * @throws IllegalArgumentException if there is text before the first record
+	 */
+	public AppRecordParser(Reader in) {
+		this(in, new ReviewerDictionary());
+	}
+
+	/**
+	 * Constructs an AppRecordParser that reads records from the given reader, sharing
+	 * reviewer ids through the given dictionary
+	 * @param in reader to parse records from
+	 * @param reviewers dictionary to share reviewer ids through
+	 * @throws IllegalArgumentException if there is text before the first record
+	 */
+	public AppRecordParser(Reader in, ReviewerDictionary reviewers) {
+		this.reviewers = reviewers;
+		reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in, BUFFER_SIZE);
+		String line = readLine(reader);
+		while(line != null && isBlank(line)) {
+			line = readLine(reader);
+		}
+		if(line != null && !isHeader(line)) {
+			throw new IllegalArgumentException("Invalid application data.");
+		}
+		nextHeader = line;
+	}
+
+	/**
+	 * Opens a parser over the given file, reading it through a buffered file channel
+	 * @param fileName name of the file
+	 * @return a parser over the records in the file
+	 * @throws IllegalArgumentException if the file cannot be opened
+	 */
+	public static AppRecordParser open(String fileName) {
+		FileChannel channel;
+		try {
+			channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ);
+		}
+		catch(IOException e) {
+			throw new IllegalArgumentException("Unable to load file.");
+		}
+		Reader in = Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder(), BUFFER_SIZE);
+		try {
+			return new AppRecordParser(new BufferedReader(in, BUFFER_SIZE));
+		}
+		catch(IllegalArgumentException e) {
+			closeQuietly(in);
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns true if there is another record to read
+	 * @return true if there is another record
+	 */
+	@Override
+	public boolean hasNext() {
+		return nextHeader != null;
+	}
+
+	/**
+	 * Parses and returns the next record as an Application
+	 * @return the next application
+	 * @throws NoSuchElementException if there are no more records
+	 * @throws IllegalArgumentException if the record is invalid
+	 */
+	@Override
+	public Application next() {
+		if(!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return readRecord();
+	}
+
+	/**
+	 * Closes the underlying reader
+	 */
+	@Override
+	public void close() {
+		closeQuietly(reader);
+	}
+
+	/**
+	 * Reads the record that starts with nextHeader, leaving nextHeader at the
+	 * header of the following record.
+	 * @return the application for the record
+	 */
+	private Application readRecord() {
+		String header = nextHeader;
+		ArrayList<String> notes = new ArrayList<String>();
+		nextHeader = readNotes(reader, notes);
+		return parseRecord(header, notes, reviewers);
+	}
+
+	/**
+	 * Parses the note lines of one record, such as a note block read back from a file
+	 * @param block text of the note lines
+	 * @return the notes in the block
+	 */
+	static ArrayList<String> parseNotes(String block) {
+		ArrayList<String> notes = new ArrayList<String>();
+		readNotes(new BufferedReader(new StringReader(block)), notes);
+		return notes;
+	}
+
+	/**
+	 * Reads note lines up to the next header line or the end of the input. A note starts
+	 * with '-' and continues over the following lines until the next note.
+	 * @param in reader to read from
+	 * @param notes list to add each note to
+	 * @return the header line that ended the notes, or null at the end of the input
+	 */
+	private static String readNotes(BufferedReader in, ArrayList<String> notes) {
+		StringBuilder note = null;
+		String line = readLine(in);
+		while(line != null && !isHeader(line)) {
+			if(!line.isEmpty() && line.charAt(0) == '-') {
+				if(note != null) {
+					notes.add(note.toString().trim());
+				}
+				note = new StringBuilder(line.length());
+				note.append(line, 1, line.length());
+			}
+			else if(note != null) {
+				note.append('\n').append(line);
+			}
+			line = readLine(in);
+		}
+		if(note != null) {
+			notes.add(note.toString().trim());
+		}
+		return line;
+	}
+
+	/**
+	 * Creates an Application from a header line and its notes. The header fields are
+	 * separated by commas with trailing empty fields ignored.
+	 * @param header line of the record, starting with '*'
+	 * @param notes of the record
+	 * @param reviewers dictionary to share the reviewer id through
+	 * @return the application for the record
+	 * @throws IllegalArgumentException if there are any problems processing the application
+	 */
+	static Application parseRecord(String header, ArrayList<String> notes, ReviewerDictionary reviewers) {
+		String[] fields = new String[7];
+		int count = 0;
+		int start = 1;
+		int end = header.length();
+		while(end > start && header.charAt(end - 1) == ',') {
+			end--;
+		}
+		for(int i = start; i <= end && count < fields.length; i++) {
+			if(i == end || header.charAt(i) == ',') {
+				fields[count++] = header.substring(start, i);
+				start = i + 1;
+			}
+		}
+
+		if(count < 6) {
+			throw new IllegalArgumentException("Invalid application data.");
+		}
+
+		int appId = Integer.parseInt(fields[0]);
+		String resolution = count > 6 ? fields[6] : "";
+		boolean processPaperwork = Boolean.parseBoolean(fields[5]);
+		return new Application(appId, fields[1], fields[2], fields[3], reviewers.canonical(fields[4]), 
+				processPaperwork, resolution, notes);
+	}
+
+	/**
+	 * Returns true if the line starts a new record
+	 * @param line to check
+	 * @return true if the line starts with '*'
+	 */
+	private static boolean isHeader(String line) {
+		return !line.isEmpty() && line.charAt(0) == '*';
+	}
+
+	/**
+	 * Returns true if the line only contains whitespace
+	 * @param line to check
+	 * @return true if the line is blank
+	 */
+	private static boolean isBlank(String line) {
+		for(int i = 0; i < line.length(); i++) {
+			if(!Character.isWhitespace(line.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Reads the next line from a reader
+	 * @param in reader to read from
+	 * @return the next line, or null at the end of the input
+	 * @throws IllegalArgumentException if the input cannot be read
+	 */
+	private static String readLine(BufferedReader in) {
+		try {
+			return in.readLine();
+		}
+		catch(IOException e) {
+			throw new IllegalArgumentException("Unable to load file.");
+		}
+	}
+
+	/**
+	 * Closes the given resource, ignoring any errors
+	 * @param c resource to close
+	 */
+	private static void closeQuietly(Closeable c) {
+		try {
+			c.close();
+		}
+		catch(IOException e) {
+			//nothing left to release
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package edu.ncsu.csc216.app_manager.model.manager;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+import edu.ncsu.csc216.app_manager.model.application.Application;
+
+/**
+ * AppSnapshot is an unchanging view of an AppList as it was when the snapshot was
+ * taken. Taking a snapshot only reads the list's current version, and reading one never
+ * blocks or is blocked by commands, adds or deletes made to the list afterwards, so a
+ * report can scan a snapshot for as long as it needs. The applications in a snapshot
+ * are copies frozen at that version and must not be changed.
+ */
+public final class AppSnapshot implements Iterable<Application> {
+
+	/** Version of the list */
+	private final AppTrie version;
+
+	/**
+	 * Constructs a snapshot of a version of a list
+	 * @param version of the list
+	 */
+	AppSnapshot(AppTrie version) {
+		this.version = version;
+	}
+
+	/**
+	 * Returns the number of applications in the snapshot
+	 * @return the number of applications
+	 */
+	public int size() {
+		return version.size();
+	}
+
+	/**
+	 * Gets the application with the given id as it was in the snapshot
+	 * @param id of application
+	 * @return the application, or null if there was none
+	 */
+	public Application getAppById(int id) {
+		return version.get(id);
+	}
+
+	/**
+	 * Gets and returns the applications in the snapshot
+	 * @return a new list of the applications, in id order
+	 */
+	public List<Application> getApps() {
+		ArrayList<Application> apps = new ArrayList<Application>(version.size());
+		version.forEach(apps::add);
+		return apps;
+	}
+
+	/**
+	 * Passes each application in the snapshot to the action, in id order
+	 * @param action to run on each application
+	 */
+	@Override
+	public void forEach(Consumer<? super Application> action) {
+		version.forEach(action);
+	}
+
+	/**
+	 * Returns an iterator over the applications in the snapshot, in id order
+	 * @return the iterator
+	 */
+	@Override
+	public Iterator<Application> iterator() {
+		return version.iterator();
+	}
+}
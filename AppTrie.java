@@ -0,0 +1,297 @@
+package edu.ncsu.csc216.app_manager.model.manager;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+import edu.ncsu.csc216.app_manager.model.application.Application;
+
+/**
+ * AppTrie is a persistent map from application ids to Applications, kept in id order.
+ * It is a trie with 32 children per node, indexed by 5 bits of the id at a time, so
+ * dense ids fill the nodes and the tree is at most seven levels deep. A trie is never
+ * changed: put and remove copy only the nodes on the path to the id and share the rest
+ * with the trie they started from, so every earlier version stays valid and can be
+ * read from any thread while later versions are made.
+ */
+final class AppTrie implements Iterable<Application> {
+
+	/** Bits of the id used at each level */
+	private static final int BITS = 5;
+
+	/** Number of children of a node */
+	private static final int WIDTH = 1 << BITS;
+
+	/** Mask of the bits used at each level */
+	private static final int MASK = WIDTH - 1;
+
+	/** Trie with no applications */
+	static final AppTrie EMPTY = new AppTrie(null, 0, 0);
+
+	/** Root node, or null if the trie is empty */
+	private final Object[] root;
+
+	/** Shift of the id bits used at the root; 0 when the root holds applications */
+	private final int shift;
+
+	/** Number of applications */
+	private final int size;
+
+	/**
+	 * Constructs an AppTrie
+	 * @param root node
+	 * @param shift of the root
+	 * @param size number of applications
+	 */
+	private AppTrie(Object[] root, int shift, int size) {
+		this.root = root;
+		this.shift = shift;
+		this.size = size;
+	}
+
+	/**
+	 * Builds a trie of the given applications in one pass, filling new nodes in place
+	 * instead of copying a path for each application
+	 * @param apps applications with distinct ids, none negative
+	 * @return the trie
+	 */
+	static AppTrie of(Iterable<Application> apps) {
+		int max = 0;
+		for(Application a : apps) {
+			max = Math.max(max, a.getAppId());
+		}
+		int shift = 0;
+		while((max >>> shift) >= WIDTH) {
+			shift += BITS;
+		}
+		Object[] root = null;
+		int size = 0;
+		for(Application a : apps) {
+			int id = a.getAppId();
+			if(root == null) {
+				root = new Object[WIDTH];
+			}
+			Object[] node = root;
+			for(int level = shift; level > 0; level -= BITS) {
+				int slot = (id >>> level) & MASK;
+				if(node[slot] == null) {
+					node[slot] = new Object[WIDTH];
+				}
+				node = (Object[]) node[slot];
+			}
+			node[id & MASK] = a;
+			size++;
+		}
+		return new AppTrie(root, shift, size);
+	}
+
+	/**
+	 * Returns the number of applications
+	 * @return the number of applications
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the application with the given id
+	 * @param id of application
+	 * @return the application, or null if there is none
+	 */
+	Application get(int id) {
+		if(id < 0 || root == null || (id >>> shift) >= WIDTH) {
+			return null;
+		}
+		Object[] node = root;
+		for(int level = shift; level > 0; level -= BITS) {
+			node = (Object[]) node[(id >>> level) & MASK];
+			if(node == null) {
+				return null;
+			}
+		}
+		return (Application) node[id & MASK];
+	}
+
+	/**
+	 * Returns a trie that maps the id to the given application
+	 * @param id of application, which must not be negative
+	 * @param a application
+	 * @return the new trie
+	 */
+	AppTrie put(int id, Application a) {
+		Object[] newRoot = root;
+		int newShift = shift;
+		while((id >>> newShift) >= WIDTH) {
+			if(newRoot != null) {
+				Object[] grown = new Object[WIDTH];
+				grown[0] = newRoot;
+				newRoot = grown;
+			}
+			newShift += BITS;
+		}
+		int newSize = get(id) == null ? size + 1 : size;
+		return new AppTrie(put(newRoot, newShift, id, a), newShift, newSize);
+	}
+
+	/**
+	 * Returns a trie without the application with the given id
+	 * @param id of application
+	 * @return the new trie, or this trie if it has no application with the id
+	 */
+	AppTrie remove(int id) {
+		if(get(id) == null) {
+			return this;
+		}
+		return new AppTrie(remove(root, shift, id), shift, size - 1);
+	}
+
+	/**
+	 * Passes each application to the action, in id order
+	 * @param action to run on each application
+	 */
+	@Override
+	public void forEach(Consumer<? super Application> action) {
+		if(root != null) {
+			forEach(root, shift, action);
+		}
+	}
+
+	/**
+	 * Returns an iterator over the applications, in id order
+	 * @return the iterator
+	 */
+	@Override
+	public Iterator<Application> iterator() {
+		return new TrieIterator();
+	}
+
+	/**
+	 * Copies the path to an id, setting the application at its end
+	 * @param node to copy, or null for an empty node
+	 * @param level shift of the node
+	 * @param id of application
+	 * @param a application
+	 * @return the copied node
+	 */
+	private static Object[] put(Object[] node, int level, int id, Application a) {
+		Object[] copy = node == null ? new Object[WIDTH] : node.clone();
+		int slot = (id >>> level) & MASK;
+		copy[slot] = level == 0 ? a : put((Object[]) copy[slot], level - BITS, id, a);
+		return copy;
+	}
+
+	/**
+	 * Copies the path to an id, clearing the application at its end. Nodes left empty
+	 * are dropped.
+	 * @param node to copy
+	 * @param level shift of the node
+	 * @param id of application
+	 * @return the copied node, or null if it is empty
+	 */
+	private static Object[] remove(Object[] node, int level, int id) {
+		Object[] copy = node.clone();
+		int slot = (id >>> level) & MASK;
+		copy[slot] = level == 0 ? null : remove((Object[]) copy[slot], level - BITS, id);
+		for(Object child : copy) {
+			if(child != null) {
+				return copy;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Passes each application under a node to the action, in id order
+	 * @param node to walk
+	 * @param level shift of the node
+	 * @param action to run on each application
+	 */
+	private static void forEach(Object[] node, int level, Consumer<? super Application> action) {
+		for(Object child : node) {
+			if(child != null) {
+				if(level == 0) {
+					action.accept((Application) child);
+				}
+				else {
+					forEach((Object[]) child, level - BITS, action);
+				}
+			}
+		}
+	}
+
+	/**
+	 * TrieIterator walks the trie depth first with a stack of the nodes on the path to
+	 * the next application
+	 */
+	private final class TrieIterator implements Iterator<Application> {
+
+		/** Nodes on the current path, from the root */
+		private final Object[][] nodes = new Object[8][];
+
+		/** Next slot to look at in each node on the path */
+		private final int[] slots = new int[8];
+
+		/** Depth of the deepest node on the path, or -1 when the walk is over */
+		private int depth;
+
+		/** Next application, or null when the walk is over */
+		private Application next;
+
+		/**
+		 * Constructs an iterator positioned at the first application
+		 */
+		TrieIterator() {
+			nodes[0] = root;
+			depth = root == null ? -1 : 0;
+			advance();
+		}
+
+		/**
+		 * Returns true if there is another application
+		 * @return true if there is another application
+		 */
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		/**
+		 * Returns the next application
+		 * @return the next application, in id order
+		 * @throws NoSuchElementException if there are no more applications
+		 */
+		@Override
+		public Application next() {
+			if(next == null) {
+				throw new NoSuchElementException();
+			}
+			Application a = next;
+			advance();
+			return a;
+		}
+
+		/**
+		 * Moves to the next application, or ends the walk
+		 */
+		private void advance() {
+			next = null;
+			while(depth >= 0) {
+				if(slots[depth] == WIDTH) {
+					depth--;
+					continue;
+				}
+				Object child = nodes[depth][slots[depth]++];
+				if(child == null) {
+					continue;
+				}
+				if(shift - depth * BITS == 0) {
+					next = (Application) child;
+					return;
+				}
+				depth++;
+				nodes[depth] = (Object[]) child;
+				slots[depth] = 0;
+			}
+		}
+	}
+}
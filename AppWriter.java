@@ -1,9 +1,18 @@
 package edu.ncsu.csc216.app_manager.model.io;
 
-import java.io.File;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
 
 import edu.ncsu.csc216.app_manager.model.application.Application;
 /**
@@ -14,28 +23,224 @@ import edu.ncsu.csc216.app_manager.model.application.Application;
 public class AppWriter {
 	
 	/**
-	 * Writes the list of applications to a given file
+	 * Writes the list of applications to a given file. The applications are written to a
+	 * temporary file that then replaces the given file, so applications whose notes are
+	 * still being read from the given file can be saved back over it.
 	 * @param fileName name of the file
 	 * @param apps list of applications
 	 * @throws illegalArgumentException if there are any problems 
 	 */
 	public static void writeAppsToFile(String fileName, List<Application> apps){
-		PrintStream fileWriter = null;
-		try {
-			fileWriter = new PrintStream(new File(fileName));
+		writeAppsToFile(fileName, apps, false);
+	}
+	
+	/**
+	 * Writes the list of applications to a given file in UTF-8, optionally followed by a
+	 * sidecar index of the position of each application in the file, which AppFileIndex 
+	 * uses to read single applications by id. Each file is written to a temporary file 
+	 * that then replaces it, the data file first. Without an index, any earlier index of
+	 * the file is deleted before the file is replaced, since it would no longer match.
+	 * @param fileName name of the file
+	 * @param apps list of applications
+	 * @param writeIndex true to also write the index file named by AppFileIndex.indexFileFor
+	 * @throws illegalArgumentException if there are any problems 
+	 */
+	public static void writeAppsToFile(String fileName, List<Application> apps, boolean writeIndex) {
+		Path temp = tempFileFor(fileName);
+		AppFileIndex.Builder index = writeIndex ? new AppFileIndex.Builder() : null;
+		CRC32 checksum = new CRC32();
+		long position = 0;
+		//buffered, so the cached text of each application is copied into large writes
+		try(OutputStream fileWriter = new BufferedOutputStream(new FileOutputStream(temp.toFile()), 1 << 16)) {
 			for(int i = 0; i < apps.size(); i++) {
 				Application a = apps.get(i);
-				fileWriter.print(a.toString());
+				byte[] record = a.toString().getBytes(StandardCharsets.UTF_8);
+				fileWriter.write(record);
+				if(index != null) {
+					index.add(a.getAppId(), position, record.length);
+					checksum.update(record);
+				}
+				position += record.length;
 				if (i + 1 < apps.size()) {
-					fileWriter.print("\n");
+					fileWriter.write('\n');
+					if(index != null) {
+						checksum.update('\n');
+					}
+					position++;
 				}
 			}
-			fileWriter.close();
 		} catch (IOException e) {
 			throw new IllegalArgumentException("Unable to save file");
 		}
-		
-		
+		if(index == null) {
+			try {
+				Files.deleteIfExists(Path.of(AppFileIndex.indexFileFor(fileName)));
+			}
+			catch(IOException e) {
+				throw new IllegalArgumentException("Unable to save file");
+			}
+			replaceFile(temp, fileName);
+			return;
+		}
+		String indexName = AppFileIndex.indexFileFor(fileName);
+		Path indexTemp = tempFileFor(indexName);
+		try(OutputStream indexWriter = new BufferedOutputStream(new FileOutputStream(indexTemp.toFile()), 1 << 16)) {
+			index.writeTo(indexWriter, position, (int) checksum.getValue());
+		}
+		catch(IOException e) {
+			throw new IllegalArgumentException("Unable to save file");
+		}
+		replaceFile(temp, fileName);
+		replaceFile(indexTemp, indexName);
+	}
+	
+	/**
+	 * Writes the list of applications to a given file in the binary snapshot format
+	 * @param fileName name of the file
+	 * @param apps list of applications
+	 * @throws IllegalArgumentException if there are any problems 
+	 */
+	public static void writeAppsToSnapshot(String fileName, List<Application> apps) {
+		writeAppsToSnapshot(fileName, apps, 0);
+	}
+	
+	/**
+	 * Writes the list of applications to a given file in the binary snapshot format, recording
+	 * the sequence number of the last journal record the snapshot covers. The snapshot is 
+	 * written to a temporary file that then replaces the given file, so a reader never sees 
+	 * a partly written snapshot.
+	 * @param fileName name of the file
+	 * @param apps list of applications
+	 * @param sequence number of the last journal record included in the applications
+	 * @throws IllegalArgumentException if there are any problems 
+	 */
+	public static void writeAppsToSnapshot(String fileName, List<Application> apps, long sequence) {
+		Path temp = tempFileFor(fileName);
+		try(FileOutputStream file = new FileOutputStream(temp.toFile())) {
+			BufferedOutputStream out = new BufferedOutputStream(file, 1 << 16);
+			writeSnapshot(out, apps, sequence);
+			out.flush();
+			file.getFD().sync();
+		}
+		catch(IOException e) {
+			throw new IllegalArgumentException("Unable to save file");
+		}
+		replaceFile(temp, fileName);
+	}
+	
+	/**
+	 * Encodes the list of applications in the binary snapshot format without writing it 
+	 * anywhere, so that a consistent image can be taken quickly and written out later
+	 * @param apps list of applications
+	 * @param sequence number of the last journal record included in the applications
+	 * @return the snapshot image
+	 */
+	public static byte[] encodeSnapshot(List<Application> apps, long sequence) {
+		ByteArrayOutputStream image = new ByteArrayOutputStream(1 << 16);
+		try {
+			writeSnapshot(image, apps, sequence);
+		}
+		catch(IOException e) {
+			throw new IllegalArgumentException("Unable to save file");
+		}
+		return image.toByteArray();
+	}
+	
+	/**
+	 * Writes a snapshot image from encodeSnapshot to a given file, replacing the file
+	 * only once the image is completely written
+	 * @param fileName name of the file
+	 * @param image snapshot image
+	 * @throws IllegalArgumentException if there are any problems 
+	 */
+	public static void writeSnapshotImage(String fileName, byte[] image) {
+		Path temp = tempFileFor(fileName);
+		try(FileOutputStream file = new FileOutputStream(temp.toFile())) {
+			file.write(image);
+			file.getFD().sync();
+		}
+		catch(IOException e) {
+			throw new IllegalArgumentException("Unable to save file");
+		}
+		replaceFile(temp, fileName);
+	}
+	
+	/**
+	 * Writes the snapshot header, every application and the checksum to a stream
+	 * @param stream to write to
+	 * @param apps list of applications
+	 * @param sequence number of the last journal record included in the applications
+	 * @throws IOException if the stream cannot be written
+	 */
+	private static void writeSnapshot(OutputStream stream, List<Application> apps, long sequence) throws IOException {
+		CheckedOutputStream checked = new CheckedOutputStream(stream, new CRC32());
+		DataOutputStream out = new DataOutputStream(checked);
+		out.writeInt(SnapshotFormat.MAGIC);
+		out.writeByte(SnapshotFormat.VERSION);
+		out.writeLong(sequence);
+		out.writeInt(apps.size());
+		for(int i = 0; i < apps.size(); i++) {
+			writeSnapshotRecord(out, apps.get(i));
+		}
+		out.writeInt((int) checked.getChecksum().getValue());
+		out.flush();
+	}
+	
+	/**
+	 * Returns the temporary file that a new version of the given file is written to
+	 * @param fileName name of the file
+	 * @return path of the temporary file
+	 */
+	private static Path tempFileFor(String fileName) {
+		Path target = Path.of(fileName).toAbsolutePath();
+		return target.resolveSibling(target.getFileName() + ".tmp");
+	}
+	
+	/**
+	 * Atomically replaces the given file with a completely written temporary file
+	 * @param temp the temporary file
+	 * @param fileName name of the file to replace
+	 * @throws IllegalArgumentException if the file cannot be replaced
+	 */
+	private static void replaceFile(Path temp, String fileName) {
+		try {
+			Files.move(temp, Path.of(fileName), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch(IOException e) {
+			throw new IllegalArgumentException("Unable to save file");
+		}
+	}
+	
+	/**
+	 * Writes one application in the binary snapshot format
+	 * @param out stream to write to
+	 * @param a application to write
+	 * @throws IOException if the stream cannot be written
+	 */
+	private static void writeSnapshotRecord(DataOutputStream out, Application a) throws IOException {
+		out.writeInt(a.getAppId());
+		out.writeByte(SnapshotFormat.encode(SnapshotFormat.STATES, a.getStateName()));
+		out.writeByte(SnapshotFormat.encode(SnapshotFormat.TYPES, a.getAppType()));
+		String resolution = a.getResolution();
+		out.writeByte(resolution == null ? SnapshotFormat.NO_RESOLUTION : SnapshotFormat.encode(SnapshotFormat.RESOLUTIONS, resolution));
+		String reviewer = a.getReviewer();
+		int flags = 0;
+		if(a.isProcessed()) {
+			flags |= SnapshotFormat.FLAG_PROCESSED;
+		}
+		if(reviewer != null) {
+			flags |= SnapshotFormat.FLAG_REVIEWER;
+		}
+		out.writeByte(flags);
+		SnapshotFormat.writeString(out, a.getSummary());
+		if(reviewer != null) {
+			SnapshotFormat.writeString(out, reviewer);
+		}
+		int notes = a.getNoteCount();
+		SnapshotFormat.writeVarInt(out, notes);
+		for(int i = 0; i < notes; i++) {
+			SnapshotFormat.writeString(out, a.getNote(i));
+		}
 	}
 
 }
@@ -1,6 +1,8 @@
 package edu.ncsu.csc216.app_manager.model.application;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import edu.ncsu.csc216.app_manager.model.command.Command;
 import edu.ncsu.csc216.app_manager.model.command.Command.Resolution;
@@ -40,17 +42,35 @@ public class Application {
 	/**A constant string for the closed state’s name with the value “Closed”. */
 	public static final String CLOSED_NAME = "Closed";
 	
-	/** Unique application id for an application. */
-	private int appId;
+	/** Bits of the packed fields holding the state ordinal */
+	private static final int STATE_MASK = 0x7;
+	
+	/** Position of the type ordinal in the packed fields */
+	private static final int TYPE_SHIFT = 3;
+	
+	/** Bits of the packed fields holding the type ordinal */
+	private static final int TYPE_MASK = 0x3 << TYPE_SHIFT;
+	
+	/** Position of the resolution in the packed fields, stored as its ordinal plus one or 0 for none */
+	private static final int RESOLUTION_SHIFT = 5;
+	
+	/** Bits of the packed fields holding the resolution */
+	private static final int RESOLUTION_MASK = 0x7 << RESOLUTION_SHIFT;
+	
+	/** Bit of the packed fields set when the paperwork is processed */
+	private static final int PROCESSED_BIT = 1 << 8;
+	
+	/** Application types, indexed by ordinal */
+	private static final AppType[] TYPE_VALUES = AppType.values();
 	
-	/** Type of application */
-	private AppType appType;
+	/** Resolutions, indexed by ordinal */
+	private static final Resolution[] RESOLUTION_VALUES = Resolution.values();
 	
-	/** Resolution of the application */
-	private Resolution resolution;
+	/** Unique application id for an application. */
+	private int appId;
 	
-	/** Current state for the application of type AppState. */
-	private AppState state;
+	/** State, type, resolution and paperwork flag of the application, packed into one int */
+	private int fields;
 	
 	/** Type of application - either a AppType.NEW or AppType.OLD. */
 	private String summary;
@@ -58,30 +78,41 @@ public class Application {
 	/** User id of the application reviewer */
 	private String reviewer;
 	
-	/** Application’s summary information from when the application is created. */
-	private boolean processPaperwork;
+	/** 
+	 * Tag of each note: 0 for a note kept as it was given, or the ordinal plus one of the
+	 * state whose "[State] " prefix starts the note
+	 */
+	private byte[] noteTags;
+	
+	/** Text of each note after its prefix */
+	private String[] noteBodies;
 	
-	/** User id of the application reviewer or null if there is not an assigned reviewer. */
-	private ArrayList<String> notes;
+	/** Number of notes */
+	private int noteCount;
 	
-	/** Instance of ReviewState */
-	private final ReviewState reviewState = new ReviewState();
+	/** Pool that note bodies are shared through, or null if they are not shared */
+	private NotePool notePool;
 	
-	/** Instance of InterviewState */
-	private final InterviewState interviewState = new InterviewState();
+	/** Dictionary that reviewer ids are shared through, or null if they are not shared */
+	private ReviewerDictionary reviewers;
 	
-	/** Instance of RefChkState */
-	private final RefChkState refChkState = new RefChkState();
+	/** 
+	 * Header line that toString starts with, or null if the application changed since it
+	 * was built. Only the header is kept, since a copy of the notes would undo their pooling.
+	 */
+	private String header;
 	
-	/** Instance of OfferState */
-	private final OfferState offerState = new OfferState();
+	/** Source that the notes are read from while they are not loaded, or null once they are */
+	private NoteSource noteSource;
 	
-	/** Instance of WaitlistState */
-	private final WaitlistState waitlistState = new WaitlistState();
+	/** Position of the notes in the note source */
+	private long noteOffset;
 	
-	/** Instance of ClosedState */
-	private final ClosedState closedState = new ClosedState();
+	/** Length of the notes in the note source */
+	private int noteLength;
 	
+	/** True if noteTags and noteBodies are shared with the application this one was copied from */
+	private boolean notesShared;
 	
 	/**
 	 * Constructs a Application from the provided AppType, summary, and note
@@ -98,12 +129,12 @@ public class Application {
 		}
 		setAppId(id);
 		setState(REVIEW_NAME);
-		this.appType = appType;
+		setAppTypeValue(appType);
 		setReviewer(null);
 		setResolution(null);
 		setProcessPaperwork(false);
 		setSummary(summary);
-		notes = new ArrayList<String>();
+		setNotes(new ArrayList<String>());
 		addNote(note);
 	}
 	
@@ -131,7 +162,7 @@ public class Application {
 		setState(state);
 		setAppType(appType);
 		if(resolution == null || "".equals(resolution)) {
-			this.resolution = null;
+			setResolutionValue(null);
 		}
 		else {
 			setResolution(resolution);
@@ -203,6 +234,71 @@ public class Application {
 		setNotes(notes);
 	}
 	
+	/**
+	 * Constructs an Application whose fields are set by fromTrusted or copy
+	 */
+	private Application() {
+	}
+	
+	/**
+	 * Creates an Application from fields that are known to be valid because they were 
+	 * saved from an Application, such as the records of a checksummed snapshot written by 
+	 * AppWriter. Only the id is checked, since an id below 1 would break the lookup of
+	 * applications by id; none of the other checks of the constructor are made, so 
+	 * anything else must use the constructor instead.
+	 * @param id of application
+	 * @param state name of the state of application
+	 * @param appType of application
+	 * @param summary of application
+	 * @param reviewer of application, or null
+	 * @param processed true if the paperwork is processed
+	 * @param resolution of application, or null
+	 * @param notes on application
+	 * @return the application
+	 * @throws IllegalArgumentException if the id is less than 1 or the state is not a state name
+	 */
+	public static Application fromTrusted(int id, String state, AppType appType, String summary, String reviewer,
+			boolean processed, Resolution resolution, ArrayList<String> notes) {
+		if(id < 1) {
+			throw new IllegalArgumentException("Application cannot be created.");
+		}
+		Application a = new Application();
+		a.setAppId(id);
+		a.setState(state);
+		a.setAppTypeValue(appType);
+		a.setResolutionValue(resolution);
+		a.setProcessPaperwork(processed);
+		a.setSummary(summary);
+		a.reviewer = reviewer;
+		a.setNotes(notes);
+		return a;
+	}
+	
+	/**
+	 * Returns a copy of the application as it is now, which later changes to this
+	 * application do not affect. The copy shares the note arrays, which this application
+	 * only ever appends to past the copy's notes, and copies them before adding its own.
+	 * @return the copy
+	 */
+	public Application copy() {
+		Application a = new Application();
+		a.appId = appId;
+		a.fields = fields;
+		a.summary = summary;
+		a.reviewer = reviewer;
+		a.noteTags = noteTags;
+		a.noteBodies = noteBodies;
+		a.noteCount = noteCount;
+		a.notesShared = true;
+		a.notePool = notePool;
+		a.reviewers = reviewers;
+		a.header = header;
+		a.noteSource = noteSource;
+		a.noteOffset = noteOffset;
+		a.noteLength = noteLength;
+		return a;
+	}
+	
 	/**
 	 * Helper method that changes a String to an AppState.
 	 * @param state as a string
@@ -211,17 +307,17 @@ public class Application {
 	private AppState parseState(String state) {
 		switch(state) {
 			case REVIEW_NAME:
-				return reviewState;
+				return AppState.REVIEW;
 			case INTERVIEW_NAME:
-				return interviewState;
+				return AppState.INTERVIEW;
 			case REFCHK_NAME:
-				return refChkState;
+				return AppState.REFCHK;
 			case OFFER_NAME:
-				return offerState;
+				return AppState.OFFER;
 			case WAITLIST_NAME:
-				return waitlistState;
+				return AppState.WAITLIST;
 			case CLOSED_NAME:
-				return closedState;
+				return AppState.CLOSED;
 			default:
 				throw new IllegalArgumentException("Invalid application state.");
 		}
@@ -273,6 +369,7 @@ public class Application {
 	 */
 	private void setAppId(int id) {
 		this.appId = id;
+		header = null;
 
 	}
 	
@@ -282,7 +379,7 @@ public class Application {
 	 */
 	private void setState(String state) {
 		try {
-			this.state = parseState(state);
+			setStateValue(parseState(state));
 		}
 		catch(IllegalArgumentException e) {
 			throw new IllegalArgumentException("Application cannot be created.");
@@ -295,7 +392,7 @@ public class Application {
 	 */
 	private void setAppType(String appType) {
 		try {
-			this.appType = parseType(appType);
+			setAppTypeValue(parseType(appType));
 		}
 		catch(IllegalArgumentException e) {
 			throw new IllegalArgumentException("Application cannot be created.");
@@ -309,6 +406,7 @@ public class Application {
 	 */
 	private void setSummary(String summary) {
 		this.summary = summary;
+		header = null;
 		
 	}
 	
@@ -321,8 +419,9 @@ public class Application {
 			this.reviewer = null;
 		}
 		else {
-			this.reviewer = reviewer;
+			this.reviewer = canonicalReviewer(reviewer);
 		}
+		header = null;
 		
 	}
 	
@@ -331,7 +430,8 @@ public class Application {
 	 * @param isProcessed boolean represents if the paperwork is processed
 	 */
 	private void setProcessPaperwork(boolean isProcessed) {
-		processPaperwork = isProcessed;
+		fields = isProcessed ? fields | PROCESSED_BIT : fields & ~PROCESSED_BIT;
+		header = null;
 		
 	}
 	
@@ -343,7 +443,7 @@ public class Application {
 		
 		
 		try {
-			this.resolution = parseResolution(resolution);
+			setResolutionValue(parseResolution(resolution));
 		}
 		catch(IllegalArgumentException e) {
 			throw new IllegalArgumentException("Application cannot be created.");
@@ -352,14 +452,182 @@ public class Application {
 	}
 	
 	/**
-	 * Sets the notes of the application with the given parameter
+	 * Stores the state in the packed fields
+	 * @param state of application
+	 */
+	private void setStateValue(AppState state) {
+		fields = (fields & ~STATE_MASK) | state.ordinal();
+		header = null;
+	}
+	
+	/**
+	 * Stores the application type in the packed fields
+	 * @param appType of application
+	 */
+	private void setAppTypeValue(AppType appType) {
+		fields = (fields & ~TYPE_MASK) | (appType.ordinal() << TYPE_SHIFT);
+		header = null;
+	}
+	
+	/**
+	 * Stores the resolution in the packed fields
+	 * @param resolution of application, or null for none
+	 */
+	private void setResolutionValue(Resolution resolution) {
+		int code = resolution == null ? 0 : resolution.ordinal() + 1;
+		fields = (fields & ~RESOLUTION_MASK) | (code << RESOLUTION_SHIFT);
+		header = null;
+	}
+	
+	/**
+	 * Returns the state from the packed fields
+	 * @return state of application
+	 */
+	private AppState getStateValue() {
+		return AppState.VALUES[fields & STATE_MASK];
+	}
+	
+	/**
+	 * Gets and returns the application type as an enumeration value
+	 * @return application type
+	 */
+	public AppType getAppTypeValue() {
+		return TYPE_VALUES[(fields & TYPE_MASK) >>> TYPE_SHIFT];
+	}
+	
+	/**
+	 * Gets and returns the resolution as an enumeration value
+	 * @return resolution of the application, or null if there is none
+	 */
+	public Resolution getResolutionValue() {
+		int code = (fields & RESOLUTION_MASK) >>> RESOLUTION_SHIFT;
+		return code == 0 ? null : RESOLUTION_VALUES[code - 1];
+	}
+	
+	/**
+	 * Sets the notes of the application with the given parameter. A state prefix at the
+	 * start of a note is kept as its tag.
 	 * @param notes arraylist of notes to set
 	 */
-	private void setNotes(ArrayList<String> notes) {
-		this.notes = notes;
+	private void setNotes(List<String> notes) {
+		noteTags = new byte[Math.max(2, notes.size())];
+		noteBodies = new String[noteTags.length];
+		noteCount = 0;
+		notesShared = false;
+		for(int i = 0; i < notes.size(); i++) {
+			String note = notes.get(i);
+			int tag = 0;
+			if(note.startsWith("[")) {
+				for(AppState s : AppState.VALUES) {
+					if(note.startsWith(s.getNotePrefix())) {
+						tag = s.ordinal() + 1;
+						break;
+					}
+				}
+			}
+			appendNote(tag, tag == 0 ? note : note.substring(AppState.VALUES[tag - 1].getNotePrefix().length()));
+		}
+		header = null;
+	}
+	
+	/**
+	 * Adds a note with the given tag and body
+	 * @param tag of the note
+	 * @param body of the note
+	 */
+	private void appendNote(int tag, String body) {
+		if(notesShared || noteCount == noteTags.length) {
+			noteTags = Arrays.copyOf(noteTags, Math.max(2, noteCount * 2));
+			noteBodies = Arrays.copyOf(noteBodies, noteTags.length);
+			notesShared = false;
+		}
+		noteTags[noteCount] = (byte) tag;
+		noteBodies[noteCount] = notePool == null ? body : notePool.intern(body);
+		noteCount++;
+		header = null;
+	}
+	
+	/**
+	 * Leaves the notes of the application in a note source instead of in memory. The
+	 * notes are read from the source, which may cache them, each time they are needed,
+	 * and are only loaded into the application when a note is added.
+	 * @param source to read the notes from
+	 * @param offset of the notes in the source
+	 * @param length of the notes in the source
+	 * @throws IllegalArgumentException if the source is null
+	 */
+	public void deferNotes(NoteSource source, long offset, int length) {
+		if(source == null) {
+			throw new IllegalArgumentException("Invalid note source.");
+		}
+		noteSource = source;
+		noteOffset = offset;
+		noteLength = length;
+		noteTags = null;
+		noteBodies = null;
+		noteCount = 0;
+		header = null;
+	}
+	
+	/**
+	 * Returns true if the notes of the application are still in a note source
+	 * @return true if the notes have not been loaded
+	 */
+	public boolean hasDeferredNotes() {
+		return noteSource != null;
+	}
+	
+	/**
+	 * Reads the notes from the note source without loading them into the application
+	 * @return the notes, which must not be changed
+	 */
+	private List<String> readDeferredNotes() {
+		return noteSource.readNotes(noteOffset, noteLength);
+	}
+	
+	/**
+	 * Loads the notes from the note source into the application, if they are still there
+	 */
+	private void loadDeferredNotes() {
+		if(noteSource != null) {
+			List<String> notes = readDeferredNotes();
+			noteSource = null;
+			setNotes(notes);
+		}
+	}
+	
+	/**
+	 * Shares the bodies of this application's notes, and of notes added later, through 
+	 * the given pool, so that applications with the same note text hold one copy of it
+	 * @param pool to share note bodies through
+	 */
+	public void shareNotes(NotePool pool) {
+		notePool = pool;
+		for(int i = 0; i < noteCount; i++) {
+			noteBodies[i] = pool.intern(noteBodies[i]);
+		}
 		
 	}
 	
+	/**
+	 * Shares the reviewer id of this application, and reviewer ids assigned later, through
+	 * the given dictionary, so that applications with the same reviewer hold one String
+	 * @param dictionary to share reviewer ids through
+	 */
+	public void shareReviewer(ReviewerDictionary dictionary) {
+		reviewers = dictionary;
+		reviewer = dictionary.canonical(reviewer);
+	}
+	
+	/**
+	 * Returns the shared copy of a reviewer id, if reviewer ids are shared
+	 * @param reviewerId id of the reviewer, or null
+	 * @return the shared String equal to the id, or the id itself
+	 */
+	private String canonicalReviewer(String reviewerId) {
+		return reviewers == null ? reviewerId : reviewers.canonical(reviewerId);
+	}
+	
 	/**
 	 * Gets and returns the application id
 	 * @return application's id
@@ -373,7 +641,7 @@ public class Application {
 	 * @return name of the state as a string
 	 */
 	public String getStateName() {
-		return state.getStateName();
+		return getStateValue().getStateName();
 	}
 	
 	/**
@@ -381,7 +649,7 @@ public class Application {
 	 * @return application type as string
 	 */
 	public String getAppType() {
-		switch(appType) 
+		switch(getAppTypeValue()) 
 		{
 			case AppType.NEW:
 				return A_NEW;
@@ -419,7 +687,7 @@ public class Application {
 	 * @return true if the paperwork is processed false if not
 	 */
 	public boolean isProcessed() {
-		return processPaperwork;
+		return (fields & PROCESSED_BIT) != 0;
 	}
 	
 	/**
@@ -427,7 +695,7 @@ public class Application {
 	 * @return resolution of the application
 	 */
 	public String getResolution() {
-		switch(resolution)
+		switch(getResolutionValue())
 		{
 			case Command.Resolution.REVCOMPLETED:
 				return Command.R_REVCOMPLETED;
@@ -446,40 +714,103 @@ public class Application {
 	}
 	
 	/**
-	 * Gets and returns the notes of an application
+	 * Gets and returns the notes of an application. The list is rebuilt on each call, so 
+	 * changing it does not change the application; notes are added through addNote.
 	 * @return the notes of the application
 	 */
 	public ArrayList<String> getNotes(){
+		if(noteSource != null) {
+			return new ArrayList<String>(readDeferredNotes());
+		}
+		ArrayList<String> notes = new ArrayList<String>(noteCount);
+		for(int i = 0; i < noteCount; i++) {
+			notes.add(getNote(i));
+		}
 		return notes;
 	}
 	
+	/**
+	 * Gets and returns the number of notes on an application
+	 * @return the number of notes
+	 */
+	public int getNoteCount() {
+		if(noteSource != null) {
+			return readDeferredNotes().size();
+		}
+		return noteCount;
+	}
+	
+	/**
+	 * Gets and returns one note of an application
+	 * @param index of the note, from 0 for the oldest
+	 * @return the note, including its state prefix
+	 * @throws IndexOutOfBoundsException if there is no note at the index
+	 */
+	public String getNote(int index) {
+		if(noteSource != null) {
+			List<String> notes = readDeferredNotes();
+			if(index < 0 || index >= notes.size()) {
+				throw new IndexOutOfBoundsException("Invalid note.");
+			}
+			return notes.get(index);
+		}
+		if(index < 0 || index >= noteCount) {
+			throw new IndexOutOfBoundsException("Invalid note.");
+		}
+		return noteTags[index] == 0 ? noteBodies[index] : AppState.VALUES[noteTags[index] - 1].getNotePrefix() + noteBodies[index];
+	}
+	
 	/**
 	 * Gets and returns the notes as a string
 	 * @return the notes of the application as a string
 	 */
 	public String getNotesString() {
-		String notesString = "";
-		
-		for(int i = 0; i < notes.size(); i++) {
-			
-				notesString += "-" + notes.get(i) + "\n";
-			
+		StringBuilder notesString = new StringBuilder();
+		appendNotes(notesString);
+		return notesString.toString();
+	}
+	
+	/**
+	 * Appends each note, on its own line after a '-', to a builder
+	 * @param sb builder to append to
+	 */
+	private void appendNotes(StringBuilder sb) {
+		if(noteSource != null) {
+			for(String note : readDeferredNotes()) {
+				sb.append('-').append(note).append('\n');
+			}
+			return;
+		}
+		for(int i = 0; i < noteCount; i++) {
+			sb.append('-');
+			if(noteTags[i] != 0) {
+				sb.append(AppState.VALUES[noteTags[i] - 1].getNotePrefix());
+			}
+			sb.append(noteBodies[i]).append('\n');
 		}
-		return notesString;
 	}
 	
 	/**
-	 * Gets and returns an Application object as a string
+	 * Gets and returns an Application object as a string. The header line is kept until 
+	 * the application next changes, so saving an unchanged application does not format
+	 * it again; the notes are appended from the shared note text each time.
 	 * @return Application object as a string
 	 */
 	public String toString() {
-		if(resolution == null) {
-			return "*" + getAppId() + "," + getStateName() + "," + getAppType() + "," + getSummary() + "," + 
-					getReviewer() + "," + isProcessed() + "," + "\n" + getNotesString();
-			
+		if(header == null) {
+			StringBuilder sb = new StringBuilder(64);
+			sb.append('*').append(getAppId()).append(',').append(getStateName()).append(',').append(getAppType())
+					.append(',').append(getSummary()).append(',').append(getReviewer()).append(',').append(isProcessed()).append(',');
+			if(getResolutionValue() != null) {
+				sb.append(getResolution());
+			}
+			sb.append('\n');
+			header = sb.toString();
 		}
-		return "*" + getAppId() + "," + getStateName() + "," + getAppType() + "," + getSummary() + "," + 
-				getReviewer() + "," + isProcessed() + "," + getResolution() + "\n" + getNotesString();
+		StringBuilder sb = new StringBuilder(header.length() + 32 * noteCount);
+		sb.append(header);
+		appendNotes(sb);
+		return sb.toString();
 	}
 	
 	/**
@@ -492,24 +823,9 @@ public class Application {
 		if(note.length() == 0) {
 			throw new IllegalArgumentException("Note cannot be added");
 		}
-		else if(getStateName().equals(REVIEW_NAME)) {
-			notes.add("[Review] " + note);
-		}
-		else if(getStateName().equals(INTERVIEW_NAME)) {
-			notes.add("[Interview] " + note);
-		}
-		else if(getStateName().equals(REFCHK_NAME)) {
-			notes.add("[RefCheck] " + note);
-		}
-		else if(getStateName().equals(WAITLIST_NAME)) {
-			notes.add("[Waitlist] " + note);
-		}
-		else if(getStateName().equals(OFFER_NAME)) {
-			notes.add("[Offer] " + note);
-		}
-		else if(getStateName().equals(CLOSED_NAME)) {
-			notes.add("[Closed] " + note);
-		}
+		loadDeferredNotes();
+		//the note is tagged with the current state, whose prefix is added back when the note is read
+		appendNote(getStateValue().ordinal() + 1, note);
 		
 	}
 	
@@ -519,300 +835,280 @@ public class Application {
 	 * @throws UnsupportedOperationException if the command is not appropriate for the current state
 	 */
 	public void update(Command c) {
-		try {
-			state.updateState(c);
-		}
-		catch(UnsupportedOperationException e) {
+		if(tryUpdate(c) == Command.Outcome.REJECTED) {
 			throw new UnsupportedOperationException("Invalid information.");
 		}
 		
 	}
-
 	
 	/**
-	 * Interface for states in the Application State Pattern.  All 
-	 * concrete application states must implement the AppState interface.
-	 * The AppState interface should be a private interface of the 
-	 * Application class.
-	 * 
-	 * @author Dr. Sarah Heckman (sarah_heckman@ncsu.edu) 
-	 * @author Dr. Chandrika Satyavolu (jsatyav@ncsu.edu)
+	 * Updates the application with the given command if the command is valid in the
+	 * current state, without throwing if it is not
+	 * @param c command to be updated to
+	 * @return APPLIED if the application was updated, or REJECTED if the command is not 
+	 * appropriate for the current state
 	 */
-	private interface AppState {
-		
-		/**
-		 * Update the Application based on the given Command.
-		 * An UnsupportedOperationException is thrown if the Command
-		 * is not a valid action for the given state.  
-		 * @param command Command describing the action that will update the Application's
-		 * state.
-		 * @throws UnsupportedOperationException if the Command is not a valid action
-		 * for the given state.
-		 */
-		void updateState(Command command);
-		
-		/**
-		 * Returns the name of the current state as a String.
-		 * @return the name of the current state as a String.
-		 */
-		String getStateName();
-
+	public Command.Outcome tryUpdate(Command c) {
+		String reviewerId = c.getReviewerId();
+		boolean hasReviewer = reviewerId != null && !reviewerId.isEmpty();
+		Transition t = TRANSITIONS[slot(getStateValue(), c.getCommand(), hasReviewer, getAppTypeValue(), getResolutionValue())];
+		if(t == null) {
+			return Command.Outcome.REJECTED;
+		}
+		transition(t, c);
+		return Command.Outcome.APPLIED;
 	}
+
 	
 	/**
-	 * Private class for the Review state.
+	 * States of the Application state machine. The transitions out of each state are
+	 * held in the transition table rather than in the states themselves.
 	 */
-	private class ReviewState implements AppState {
-
-		/**
-		 * Updates the state to Review state.
-		 * @throws UnsupportedOperationException if the Command is not a valid action
-		 * for the given state.
-		 */
-		@Override
-		public void updateState(Command c) {
-			if(c.getCommand() == Command.CommandValue.ACCEPT && c.getReviewerId() != null && !c.getReviewerId().isEmpty()) {
-				reviewer = c.getReviewerId();
-				setState(INTERVIEW_NAME);
-				setAppType(A_OLD);
-				
-			}
-			else if(c.getCommand() == Command.CommandValue.STANDBY && getAppType() != A_OLD) {
-				setResolution(Command.R_REVCOMPLETED);
-				reviewer = c.getReviewerId();
-				setState(WAITLIST_NAME);
-			}
-			else if(c.getCommand() == Command.CommandValue.REJECT) {
-				setResolution(Command.R_REVCOMPLETED);
-				setState(CLOSED_NAME);
-				reviewer = c.getReviewerId();
-			}
-			else if(c.getReviewerId() == null || c.getNote().length() == 0) {
-				throw new UnsupportedOperationException("Invalid information.");
-			}
-			else {
-				throw new UnsupportedOperationException("Invalid information.");
-			}
-			
-			addNote(c.getNote());
-		}
-
+	private enum AppState {
+		/** Review state */
+		REVIEW(REVIEW_NAME),
+		/** Interview state */
+		INTERVIEW(INTERVIEW_NAME),
+		/** Reference check state */
+		REFCHK(REFCHK_NAME),
+		/** Offer state */
+		OFFER(OFFER_NAME),
+		/** Waitlist state */
+		WAITLIST(WAITLIST_NAME),
+		/** Closed state */
+		CLOSED(CLOSED_NAME);
+		
+		/** States, indexed by ordinal */
+		private static final AppState[] VALUES = values();
+		
+		/** Name of the state */
+		private final String stateName;
+		
+		/** Prefix of the notes added in the state */
+		private final String notePrefix;
+		
 		/**
-		 * Returns the state name
-		 * @return state name
+		 * Constructs a state with the given name
+		 * @param stateName name of the state
 		 */
-		@Override
-		public String getStateName() {
-			return REVIEW_NAME;
+		AppState(String stateName) {
+			this.stateName = stateName;
+			this.notePrefix = "[" + stateName + "] ";
 		}
 		
-	}
-	
-	/**
-	 * Private class for the Interview State.
-	 */
-	private class InterviewState implements AppState {
-
-
 		/**
-		 * Updates the state to Interview state.
-		 * @throws UnsupportedOperationException if the Command is not a valid action
-		 * for the given state.
+		 * Returns the prefix of the notes added in the state
+		 * @return the prefix, such as "[Review] "
 		 */
-		@Override
-		public void updateState(Command c) {
-			if(c.getCommand() == Command.CommandValue.ACCEPT && c.getReviewerId() != null && !c.getReviewerId().isEmpty()) {
-				setReviewer(c.getReviewerId());
-				setState(REFCHK_NAME);
-				setProcessPaperwork(true);
-				
-			}
-			else if(c.getCommand() == Command.CommandValue.STANDBY) {
-				reviewer = c.getReviewerId();
-				setResolution(Command.R_INTCOMPLETED);
-				setState(WAITLIST_NAME);
-			}
-			else if(c.getCommand() == Command.CommandValue.REJECT) {
-				setResolution(Command.R_INTCOMPLETED);
-				reviewer = c.getReviewerId();
-				setState(CLOSED_NAME);
-			}
-			else {
-				throw new UnsupportedOperationException("Invalid information.");
-			}
-			addNote(c.getNote());
+		String getNotePrefix() {
+			return notePrefix;
 		}
-
+		
 		/**
-		 * Returns the state name
-		 * @return state name
+		 * Returns the name of the state as a String.
+		 * @return the name of the state as a String.
 		 */
-		@Override
-		public String getStateName() {
-			return INTERVIEW_NAME;
+		String getStateName() {
+			return stateName;
 		}
-		
 	}
 	
 	/**
-	 * Private class for the Reference Check State.
+	 * What a transition does with the reviewer of an application
 	 */
-	private class RefChkState implements AppState {
-		/**
-		 * Updates the state to Reference check state
-		 * @throws UnsupportedOperationException if the Command is not a valid action
-		 * for the given state.
-		 */
-		@Override
-		public void updateState(Command c) {
-			if(c.getReviewerId() != null && !c.getReviewerId().isEmpty() && c.getCommand() == Command.CommandValue.ACCEPT) {
-				setResolution(Command.R_REFCHKCOMPLETED);
-				setProcessPaperwork(true);
-				reviewer = c.getReviewerId();
-				setState(OFFER_NAME);
-				setResolution(null);
-			}
-			else if(c.getCommand() == Command.CommandValue.REJECT) {
-				setResolution(Command.R_REFCHKCOMPLETED);
-				setReviewer(c.getReviewerId());
-				setState(CLOSED_NAME);
-			}
-			else {
-				throw new UnsupportedOperationException("Invalid information.");
-			}
-			addNote(c.getNote());
-			
-		}
-
-		/**
-		 * Returns the state name
-		 * @return state name 
-		 */
-		@Override
-		public String getStateName() {
-			return REFCHK_NAME;
-		}
-		
+	private enum ReviewerChange {
+		/** Leaves the reviewer as it is */
+		KEEP,
+		/** Takes the reviewer id of the command as it is */
+		COMMAND,
+		/** Takes the reviewer id of the command, with an empty id stored as null */
+		COMMAND_OR_NULL,
+		/** Removes the reviewer */
+		CLEAR
 	}
 	
 	/**
-	 * Private class for the Offer State.
+	 * Condition on an application and command that a transition rule applies under
 	 */
-	private class OfferState implements AppState {
-		/**
-		 * Updates the state to Offer state
-		 * @throws UnsupportedOperationException if the Command is not a valid action
-		 * for the given state.
-		 */
-		@Override
-		public void updateState(Command c) {
-
-			if(c.getReviewerId() != null && !c.getReviewerId().isEmpty() && c.getCommand() == Command.CommandValue.ACCEPT) {
-				setResolution(Command.R_OFFERCOMPLETED);
-				setProcessPaperwork(true);
-				setAppType(A_HIRED);
-				setState(CLOSED_NAME);
-			}
-			else if(c.getCommand() == Command.CommandValue.REJECT) {
-				setResolution(Command.R_OFFERCOMPLETED);
-				setReviewer(null);
-				setState(CLOSED_NAME);
-			}
-			else {
-				throw new UnsupportedOperationException("Invalid information.");
-			}
-			addNote(c.getNote());
-		}
-
+	private interface Guard {
+		
 		/**
-		 * Returns the state name
-		 * @return state name
+		 * Returns true if the rule applies
+		 * @param hasReviewer true if the command has a non-empty reviewer id
+		 * @param type of the application
+		 * @param resolution of the application, or null
+		 * @return true if the rule applies
 		 */
-		@Override
-		public String getStateName() {
-			return OFFER_NAME;
-		}
-		
+		boolean test(boolean hasReviewer, AppType type, Resolution resolution);
 	}
 	
 	/**
-	 * Private class for the Waitlist state
+	 * A transition of the Application state machine: the field changes made when a 
+	 * command is accepted. The note of the command is always added afterwards.
 	 */
-	private class WaitlistState implements AppState {
+	private static final class Transition {
+		
+		/** State the application moves to */
+		private final AppState target;
+		
+		/** Type the application becomes, or null to keep the type */
+		private final AppType type;
+		
+		/** True if the resolution is replaced */
+		private final boolean setsResolution;
+		
+		/** New resolution, possibly null, if setsResolution is true */
+		private final Resolution resolution;
+		
+		/** Change made to the reviewer */
+		private final ReviewerChange reviewer;
+		
+		/** New paperwork flag, or null to keep the flag */
+		private final Boolean processed;
 		
 		/**
-		 * Updates the state to Waitlist state
-		 * @throws UnsupportedOperationException if the Command is not a valid action
-		 * for the given state.
-		 */
-		@Override
-		public void updateState(Command c) {
-			if(resolution == Command.Resolution.INTCOMPLETED && c.getReviewerId() != null && !c.getReviewerId().isEmpty() && c.getCommand() == Command.CommandValue.REOPEN) {
-				setProcessPaperwork(true);
-				setState(REFCHK_NAME);
-				setResolution(null);
-				setReviewer(c.getReviewerId());
-			}
-			else if(resolution == Resolution.REVCOMPLETED && getAppType().equals(A_NEW) && c.getCommand() == Command.CommandValue.REOPEN) {
-				setAppType(A_OLD);
-				setState(REVIEW_NAME);
-				setResolution(null);
-				setProcessPaperwork(false);
-				reviewer = c.getReviewerId();
-			}
-			else {
-				throw new UnsupportedOperationException("Invalid information.");
-			}
-			addNote(c.getNote());
-		}
-
-		/**
-		 * Returns the state name
-		 * @return state name
+		 * Constructs a Transition
+		 * @param target state the application moves to
+		 * @param type the application becomes, or null to keep the type
+		 * @param setsResolution true if the resolution is replaced
+		 * @param resolution new resolution if setsResolution is true
+		 * @param reviewer change made to the reviewer
+		 * @param processed new paperwork flag, or null to keep the flag
 		 */
-		@Override
-		public String getStateName() {
-			return WAITLIST_NAME;
+		Transition(AppState target, AppType type, boolean setsResolution, Resolution resolution, 
+				ReviewerChange reviewer, Boolean processed) {
+			this.target = target;
+			this.type = type;
+			this.setsResolution = setsResolution;
+			this.resolution = resolution;
+			this.reviewer = reviewer;
+			this.processed = processed;
 		}
+	}
+	
+	/** Number of values of the type guard */
+	private static final int TYPES = AppType.values().length;
+	
+	/** Number of values of the resolution guard, including no resolution */
+	private static final int RESOLUTIONS = Resolution.values().length + 1;
+	
+	/** Number of commands */
+	private static final int COMMANDS = Command.CommandValue.values().length;
+	
+	/** 
+	 * Transition table, indexed by state, command, reviewer guard, type and resolution.
+	 * A null entry means the command is not valid there.
+	 */
+	private static final Transition[] TRANSITIONS = new Transition[AppState.values().length * COMMANDS * 2 * TYPES * RESOLUTIONS];
+	
+	static {
+		//rules for the same state and command are listed in priority order
+		rule(AppState.REVIEW, Command.CommandValue.ACCEPT, (r, t, res) -> r,
+				new Transition(AppState.INTERVIEW, AppType.OLD, false, null, ReviewerChange.COMMAND, null));
+		rule(AppState.REVIEW, Command.CommandValue.STANDBY, (r, t, res) -> t != AppType.OLD,
+				new Transition(AppState.WAITLIST, null, true, Resolution.REVCOMPLETED, ReviewerChange.COMMAND, null));
+		rule(AppState.REVIEW, Command.CommandValue.REJECT, (r, t, res) -> true,
+				new Transition(AppState.CLOSED, null, true, Resolution.REVCOMPLETED, ReviewerChange.COMMAND, null));
+		
+		rule(AppState.INTERVIEW, Command.CommandValue.ACCEPT, (r, t, res) -> r,
+				new Transition(AppState.REFCHK, null, false, null, ReviewerChange.COMMAND_OR_NULL, true));
+		rule(AppState.INTERVIEW, Command.CommandValue.STANDBY, (r, t, res) -> true,
+				new Transition(AppState.WAITLIST, null, true, Resolution.INTCOMPLETED, ReviewerChange.COMMAND, null));
+		rule(AppState.INTERVIEW, Command.CommandValue.REJECT, (r, t, res) -> true,
+				new Transition(AppState.CLOSED, null, true, Resolution.INTCOMPLETED, ReviewerChange.COMMAND, null));
+		
+		rule(AppState.REFCHK, Command.CommandValue.ACCEPT, (r, t, res) -> r,
+				new Transition(AppState.OFFER, null, true, null, ReviewerChange.COMMAND, true));
+		rule(AppState.REFCHK, Command.CommandValue.REJECT, (r, t, res) -> true,
+				new Transition(AppState.CLOSED, null, true, Resolution.REFCHKCOMPLETED, ReviewerChange.COMMAND_OR_NULL, null));
+		
+		rule(AppState.OFFER, Command.CommandValue.ACCEPT, (r, t, res) -> r,
+				new Transition(AppState.CLOSED, AppType.HIRED, true, Resolution.OFFERCOMPLETED, ReviewerChange.KEEP, true));
+		rule(AppState.OFFER, Command.CommandValue.REJECT, (r, t, res) -> true,
+				new Transition(AppState.CLOSED, null, true, Resolution.OFFERCOMPLETED, ReviewerChange.CLEAR, null));
 		
+		rule(AppState.WAITLIST, Command.CommandValue.REOPEN, (r, t, res) -> res == Resolution.INTCOMPLETED && r,
+				new Transition(AppState.REFCHK, null, true, null, ReviewerChange.COMMAND_OR_NULL, true));
+		rule(AppState.WAITLIST, Command.CommandValue.REOPEN, (r, t, res) -> res == Resolution.REVCOMPLETED && t == AppType.NEW,
+				new Transition(AppState.REVIEW, AppType.OLD, true, null, ReviewerChange.COMMAND, false));
+		
+		rule(AppState.CLOSED, Command.CommandValue.REOPEN, (r, t, res) -> t == AppType.NEW && res == Resolution.REVCOMPLETED,
+				new Transition(AppState.REVIEW, AppType.OLD, true, null, ReviewerChange.KEEP, null));
+		//any other reopen that is not of an old or review-completed application only adds the note
+		rule(AppState.CLOSED, Command.CommandValue.REOPEN, (r, t, res) -> t != AppType.OLD && res != Resolution.REVCOMPLETED,
+				new Transition(AppState.CLOSED, null, false, null, ReviewerChange.KEEP, null));
 	}
 	
 	/**
-	 * Private class for the Closed state.
+	 * Adds a transition to every table entry for the state and command whose guards 
+	 * are matched by the rule and that are not already taken by an earlier rule
+	 * @param from state the rule applies in
+	 * @param command the rule applies to
+	 * @param guard condition the rule applies under
+	 * @param transition taken when the rule applies
 	 */
-	private class ClosedState implements AppState {
-		/**
-		 * Updates the state to the Closed state
-		 * @throws UnsupportedOperationException if the Command is not a valid action
-		 * for the given state.
-		 */
-		@Override
-		public void updateState(Command c) {
-			if(c.getCommand() == Command.CommandValue.REOPEN) {
-				if(getAppType().equals(A_NEW) && resolution == Command.Resolution.REVCOMPLETED) {
-					setAppType(A_OLD);
-					setState(REVIEW_NAME);
-					setResolution(null);
-				}
-				else if(getAppType().equals(A_OLD) || resolution == Command.Resolution.REVCOMPLETED) {
-					throw new UnsupportedOperationException("Invalid information.");
+	private static void rule(AppState from, Command.CommandValue command, Guard guard, Transition transition) {
+		for(int r = 0; r < 2; r++) {
+			for(AppType type : AppType.values()) {
+				for(int res = 0; res < RESOLUTIONS; res++) {
+					Resolution resolution = res == 0 ? null : Resolution.values()[res - 1];
+					int slot = slot(from, command, r == 1, type, resolution);
+					if(TRANSITIONS[slot] == null && guard.test(r == 1, type, resolution)) {
+						TRANSITIONS[slot] = transition;
+					}
 				}
 			}
-			else {
-				throw new UnsupportedOperationException("Invalid information.");
-				
-			}
-			addNote(c.getNote());
 		}
-
-		/**
-		 * Returns the state name
-		 * @return state name
-		 */
-		@Override
-		public String getStateName() {
-			return CLOSED_NAME;
+	}
+	
+	/**
+	 * Returns the table entry for a state, command and guard values
+	 * @param state of the application
+	 * @param command being applied
+	 * @param hasReviewer true if the command has a non-empty reviewer id
+	 * @param type of the application
+	 * @param resolution of the application, or null
+	 * @return index into the transition table
+	 */
+	private static int slot(AppState state, Command.CommandValue command, boolean hasReviewer, AppType type, Resolution resolution) {
+		int slot = state.ordinal() * COMMANDS + command.ordinal();
+		slot = slot * 2 + (hasReviewer ? 1 : 0);
+		slot = slot * TYPES + type.ordinal();
+		return slot * RESOLUTIONS + (resolution == null ? 0 : resolution.ordinal() + 1);
+	}
+	
+	/**
+	 * Applies a transition from the transition table to this application
+	 * @param t transition to apply
+	 * @param c command the transition was found for
+	 */
+	private void transition(Transition t, Command c) {
+		String reviewerId = c.getReviewerId();
+		boolean hasReviewer = reviewerId != null && !reviewerId.isEmpty();
+		header = null;
+		setStateValue(t.target);
+		if(t.type != null) {
+			setAppTypeValue(t.type);
 		}
-		
+		if(t.setsResolution) {
+			setResolutionValue(t.resolution);
+		}
+		switch(t.reviewer) {
+			case COMMAND:
+				reviewer = canonicalReviewer(reviewerId);
+				break;
+			case COMMAND_OR_NULL:
+				reviewer = hasReviewer ? canonicalReviewer(reviewerId) : null;
+				break;
+			case CLEAR:
+				reviewer = null;
+				break;
+			default:
+				break;
+		}
+		if(t.processed != null) {
+			setProcessPaperwork(t.processed);
+		}
+		addNote(c.getNote());
 	}
 }
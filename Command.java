@@ -12,6 +12,9 @@ public class Command {
 
 	/*** The final states that an application can be in. */
 	public enum Resolution { REVCOMPLETED, INTCOMPLETED, REFCHKCOMPLETED, OFFERCOMPLETED }
+	
+	/** Outcomes of applying a command to an application */
+	public enum Outcome { APPLIED, REJECTED, NOT_FOUND }
 
 	/** A constant string for the Review Completed resolution. */
 	public static final String R_REVCOMPLETED = "ReviewCompleted";
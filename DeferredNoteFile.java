@@ -0,0 +1,292 @@
+package edu.ncsu.csc216.app_manager.model.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.ncsu.csc216.app_manager.model.application.Application;
+import edu.ncsu.csc216.app_manager.model.application.NoteSource;
+import edu.ncsu.csc216.app_manager.model.application.ReviewerDictionary;
+
+/**
+ * DeferredNoteFile loads the applications in an application file from their header
+ * lines only. While scanning the file it records the offset and length of each
+ * application's block of note lines, and the applications read their notes back from
+ * the file through it when they are needed. The most recently read note blocks are
+ * kept in a cache of bounded size.
+ *
+ * The file stays open until the DeferredNoteFile is closed, so the notes can still be
+ * read after the file is replaced by a save, which writes a new file in its place. A
+ * DeferredNoteFile that is never closed is closed once it can no longer be reached,
+ * which is after the last application, or copy of one in a snapshot, that reads its
+ * notes from it is gone.
+ */
+public final class DeferredNoteFile implements NoteSource, Closeable {
+
+	/** Number of note blocks cached when no size is given */
+	public static final int DEFAULT_CACHE_SIZE = 1024;
+
+	/** Size of the buffer the file is scanned through */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** Closes the files of DeferredNoteFiles that can no longer be reached */
+	private static final Cleaner CLEANER = Cleaner.create();
+
+	/** Channel of the open file */
+	private final FileChannel channel;
+
+	/** Most recently read note blocks by offset, least recently used first */
+	private final LinkedHashMap<Long, List<String>> cache;
+
+	/** Closes the file, either when close is called or once this can no longer be reached */
+	private Cleaner.Cleanable closer;
+
+	/**
+	 * Constructs a DeferredNoteFile over an open file
+	 * @param channel of the file
+	 * @param cacheSize number of note blocks to cache
+	 */
+	private DeferredNoteFile(FileChannel channel, int cacheSize) {
+		this.channel = channel;
+		this.cache = new LinkedHashMap<Long, List<String>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, List<String>> eldest) {
+				return size() > cacheSize;
+			}
+		};
+	}
+
+	/**
+	 * Opens an application file to load its applications with deferred notes
+	 * @param fileName name of the file
+	 * @param cacheSize number of note blocks to cache
+	 * @return the open file
+	 * @throws IllegalArgumentException if the file cannot be opened or the cache size is less than one
+	 */
+	public static DeferredNoteFile open(String fileName, int cacheSize) {
+		if(cacheSize < 1) {
+			throw new IllegalArgumentException("Invalid cache size.");
+		}
+		try {
+			FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ);
+			DeferredNoteFile opened = new DeferredNoteFile(channel, cacheSize);
+			opened.closer = CLEANER.register(opened, () -> closeQuietly(channel));
+			return opened;
+		}
+		catch(IOException e) {
+			throw new IllegalArgumentException("Unable to load file.");
+		}
+	}
+
+	/**
+	 * Reads the header line of every record in the file and creates its Application,
+	 * whose notes are left in the file
+	 * @return the applications in the file, in file order
+	 * @throws IllegalArgumentException if the file cannot be read, there is text before
+	 * the first record, or a record is invalid or has no notes
+	 */
+	public ArrayList<Application> readApps() {
+		try {
+			return new Scanner().scan();
+		}
+		catch(IOException e) {
+			throw new IllegalArgumentException("Unable to load file.");
+		}
+	}
+
+	/**
+	 * Reads the notes of one application from the file, or from the cache if they were
+	 * read recently
+	 * @param offset of the note block in the file
+	 * @param length of the note block in bytes
+	 * @return the notes in the block, which must not be changed
+	 * @throws IllegalArgumentException if the block cannot be read
+	 */
+	@Override
+	public List<String> readNotes(long offset, int length) {
+		synchronized(cache) {
+			List<String> notes = cache.get(offset);
+			if(notes != null) {
+				return notes;
+			}
+		}
+		ByteBuffer block = ByteBuffer.allocate(length);
+		try {
+			while(block.hasRemaining()) {
+				if(channel.read(block, offset + block.position()) < 0) {
+					throw new IllegalArgumentException("Unable to load file.");
+				}
+			}
+		}
+		catch(IOException e) {
+			throw new IllegalArgumentException("Unable to load file.");
+		}
+		List<String> notes = Collections.unmodifiableList(
+				AppRecordParser.parseNotes(new String(block.array(), StandardCharsets.UTF_8)));
+		synchronized(cache) {
+			cache.put(offset, notes);
+		}
+		return notes;
+	}
+
+	/**
+	 * Closes the file. Applications whose notes are still in the file can no longer
+	 * read them.
+	 */
+	@Override
+	public void close() {
+		closer.clean();
+		synchronized(cache) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Closes the given channel, ignoring any errors
+	 * @param c channel to close
+	 */
+	private static void closeQuietly(FileChannel c) {
+		try {
+			c.close();
+		}
+		catch(IOException e) {
+			//nothing left to release
+		}
+	}
+
+	/**
+	 * Scanner walks the bytes of the file once, collecting each header line and the
+	 * extent of the note lines after it. Lines end at '\n' or '\r', as they do for
+	 * AppRecordParser.
+	 */
+	private final class Scanner {
+
+		/** Applications found so far */
+		private final ArrayList<Application> apps = new ArrayList<Application>();
+
+		/** Dictionary that makes records with the same reviewer share one String */
+		private final ReviewerDictionary reviewers = new ReviewerDictionary();
+
+		/** Notes given to each Application until its notes are deferred */
+		private final ArrayList<String> placeholder = new ArrayList<String>(Collections.singletonList("-"));
+
+		/** Bytes of the header line being read */
+		private byte[] header = new byte[256];
+
+		/** Number of bytes in the header */
+		private int headerLength;
+
+		/** Header line of the record whose notes are being scanned, or null before the first record */
+		private String current;
+
+		/** Offset of the note block of the current record */
+		private long blockStart;
+
+		/** True if the note block of the current record has a note line */
+		private boolean hasNote;
+
+		/**
+		 * Scans the whole file
+		 * @return the applications in the file
+		 * @throws IOException if the file cannot be read
+		 */
+		ArrayList<Application> scan() throws IOException {
+			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+			long position = 0;
+			boolean lineStart = true;
+			boolean inHeader = false;
+			int read;
+			while((read = channel.read(buffer, position)) >= 0) {
+				byte[] bytes = buffer.array();
+				for(int i = 0; i < read; i++, position++) {
+					byte b = bytes[i];
+					boolean lineEnd = b == '\n' || b == '\r';
+					if(inHeader) {
+						if(lineEnd) {
+							endHeader(position + 1);
+							inHeader = false;
+						}
+						else {
+							appendHeader(b);
+						}
+					}
+					else if(lineStart && b == '*') {
+						if(current != null) {
+							endRecord(position);
+						}
+						headerLength = 0;
+						appendHeader(b);
+						inHeader = true;
+					}
+					else if(current == null) {
+						if(!lineEnd && !Character.isWhitespace(b)) {
+							throw new IllegalArgumentException("Invalid application data.");
+						}
+					}
+					else if(lineStart && b == '-') {
+						hasNote = true;
+					}
+					lineStart = lineEnd;
+				}
+				buffer.clear();
+			}
+			if(inHeader) {
+				endHeader(position);
+			}
+			if(current != null) {
+				endRecord(position);
+			}
+			return apps;
+		}
+
+		/**
+		 * Adds a byte to the header line
+		 * @param b byte to add
+		 */
+		private void appendHeader(byte b) {
+			if(headerLength == header.length) {
+				header = Arrays.copyOf(header, headerLength * 2);
+			}
+			header[headerLength++] = b;
+		}
+
+		/**
+		 * Finishes the header line, whose note block starts at the given offset
+		 * @param start offset of the note block
+		 */
+		private void endHeader(long start) {
+			current = new String(header, 0, headerLength, StandardCharsets.UTF_8);
+			blockStart = start;
+			hasNote = false;
+		}
+
+		/**
+		 * Creates the Application of the current record, whose note block ends at the
+		 * given offset
+		 * @param end offset just past the note block
+		 * @throws IllegalArgumentException if the record is invalid or has no notes
+		 */
+		private void endRecord(long end) {
+			long length = end - blockStart;
+			if(!hasNote || length > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("Invalid application data.");
+			}
+			Application a = AppRecordParser.parseRecord(current, placeholder, reviewers);
+			a.deferNotes(DeferredNoteFile.this, blockStart, (int) length);
+			apps.add(a);
+		}
+	}
+}
@@ -0,0 +1,44 @@
+package edu.ncsu.csc216.app_manager.model.command;
+
+/**
+ * IdCommand pairs a Command with the id of the application it is executed on, so that
+ * commands on many applications can be executed together as one batch.
+ */
+public class IdCommand {
+
+	/** Id of the application */
+	private final int appId;
+
+	/** Command to execute on the application */
+	private final Command command;
+
+	/**
+	 * Constructs an IdCommand
+	 * @param appId id of the application
+	 * @param command to execute on the application
+	 * @throws IllegalArgumentException if the command is null
+	 */
+	public IdCommand(int appId, Command command) {
+		if(command == null) {
+			throw new IllegalArgumentException("Invalid information.");
+		}
+		this.appId = appId;
+		this.command = command;
+	}
+
+	/**
+	 * Gets and returns the id of the application
+	 * @return the application id
+	 */
+	public int getAppId() {
+		return appId;
+	}
+
+	/**
+	 * Gets and returns the command to execute
+	 * @return the command
+	 */
+	public Command getCommand() {
+		return command;
+	}
+}
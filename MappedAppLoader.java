@@ -0,0 +1,205 @@
+package edu.ncsu.csc216.app_manager.model.io;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import edu.ncsu.csc216.app_manager.model.application.Application;
+import edu.ncsu.csc216.app_manager.model.application.ReviewerDictionary;
+
+/**
+ * MappedAppLoader reads an application file by memory mapping it, cutting it into
+ * chunks at record boundaries, and parsing the chunks in parallel on the common
+ * fork-join pool.
+ */
+final class MappedAppLoader {
+
+	/** Smallest chunk worth handing to a separate task */
+	private static final long MIN_CHUNK = 1L << 20;
+
+	/** Largest chunk, so that a chunk can be mapped and decoded on its own */
+	private static final long MAX_CHUNK = 64L << 20;
+
+	/** Size of the window mapped while searching for a record boundary */
+	private static final int SCAN_WINDOW = 1 << 16;
+
+	/** Orders applications by id */
+	private static final Comparator<Application> ID_ORDER = Comparator.comparingInt(Application::getAppId);
+
+	/**
+	 * MappedAppLoader only has static methods
+	 */
+	private MappedAppLoader() {
+	}
+
+	/**
+	 * Reads the applications in the given file using every available core
+	 * @param fileName name of the file
+	 * @return the applications in the file, in id order
+	 * @throws IllegalArgumentException if the file cannot be read or there are any errors processing the file
+	 */
+	static ArrayList<Application> load(String fileName) {
+		try(FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if(size == 0) {
+				return new ArrayList<Application>();
+			}
+			long[] bounds = findChunks(channel, size);
+			ChunkTask all = new ChunkTask(channel, bounds, 0, bounds.length - 1, new ReviewerDictionary());
+			ArrayList<Application> apps = ForkJoinPool.commonPool().invoke(all);
+			apps.sort(ID_ORDER);
+			return apps;
+		}
+		catch(IOException e) {
+			throw new IllegalArgumentException("Unable to load file.");
+		}
+	}
+
+	/**
+	 * Cuts the file into chunks that each start at the beginning of a record
+	 * @param channel of the file
+	 * @param size of the file
+	 * @return the chunk offsets, starting with 0 and ending with the file size
+	 * @throws IOException if the file cannot be read
+	 */
+	private static long[] findChunks(FileChannel channel, long size) throws IOException {
+		int tasks = ForkJoinPool.getCommonPoolParallelism() * 4;
+		long chunk = Math.min(MAX_CHUNK, Math.max(MIN_CHUNK, size / tasks));
+		long[] bounds = new long[(int) (size / chunk) + 2];
+		int count = 1;
+		long candidate = chunk;
+		while(candidate < size) {
+			long start = nextRecordStart(channel, size, Math.max(candidate, bounds[count - 1] + 1));
+			if(start >= size) {
+				break;
+			}
+			bounds[count++] = start;
+			candidate = start + chunk;
+		}
+		bounds[count++] = size;
+		long[] result = new long[count];
+		System.arraycopy(bounds, 0, result, 0, count);
+		return result;
+	}
+
+	/**
+	 * Finds the first record header at or after the given position. A record header
+	 * is a '*' at the start of a line.
+	 * @param channel of the file
+	 * @param size of the file
+	 * @param from position to start searching at
+	 * @return position of the header, or the file size if there is none
+	 * @throws IOException if the file cannot be read
+	 */
+	private static long nextRecordStart(FileChannel channel, long size, long from) throws IOException {
+		long pos = from - 1;
+		while(pos < size - 1) {
+			int length = (int) Math.min(SCAN_WINDOW, size - pos);
+			MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, pos, length);
+			for(int i = 0; i + 1 < length; i++) {
+				if(window.get(i) == '\n' && window.get(i + 1) == '*') {
+					return pos + i + 1;
+				}
+			}
+			pos += length - 1;
+		}
+		return size;
+	}
+
+	/**
+	 * Parses one chunk of the file
+	 * @param channel of the file
+	 * @param start offset of the chunk
+	 * @param end offset just past the chunk
+	 * @param reviewers dictionary to share reviewer ids through
+	 * @return the applications in the chunk
+	 * @throws IOException if the chunk cannot be read or decoded
+	 */
+	private static ArrayList<Application> parseChunk(FileChannel channel, long start, long end, 
+			ReviewerDictionary reviewers) throws IOException {
+		if(end - start > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Invalid application data.");
+		}
+		MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+		CharBuffer chars = StandardCharsets.UTF_8.newDecoder().decode(bytes);
+		ArrayList<Application> apps = new ArrayList<Application>();
+		AppRecordParser parser = new AppRecordParser(new CharArrayReader(chars.array(),
+				chars.arrayOffset() + chars.position(), chars.remaining()), reviewers);
+		while(parser.hasNext()) {
+			apps.add(parser.next());
+		}
+		return apps;
+	}
+
+	/**
+	 * Task that parses a range of chunks, splitting the range in half until
+	 * a single chunk is left.
+	 */
+	private static class ChunkTask extends RecursiveTask<ArrayList<Application>> {
+
+		/** Serial version id */
+		private static final long serialVersionUID = 1L;
+
+		/** Channel of the file */
+		private final transient FileChannel channel;
+
+		/** Chunk offsets */
+		private final long[] bounds;
+
+		/** First chunk of the range */
+		private final int lo;
+
+		/** Chunk just past the range */
+		private final int hi;
+
+		/** Dictionary shared by every chunk */
+		private final transient ReviewerDictionary reviewers;
+
+		/**
+		 * Constructs a task for the chunks in [lo, hi)
+		 * @param channel of the file
+		 * @param bounds chunk offsets
+		 * @param lo first chunk
+		 * @param hi chunk just past the range
+		 * @param reviewers dictionary shared by every chunk
+		 */
+		ChunkTask(FileChannel channel, long[] bounds, int lo, int hi, ReviewerDictionary reviewers) {
+			this.channel = channel;
+			this.bounds = bounds;
+			this.lo = lo;
+			this.hi = hi;
+			this.reviewers = reviewers;
+		}
+
+		/**
+		 * Parses the chunks, keeping the records in file order
+		 * @return the applications in the chunks
+		 */
+		@Override
+		protected ArrayList<Application> compute() {
+			if(hi - lo == 1) {
+				try {
+					return parseChunk(channel, bounds[lo], bounds[hi], reviewers);
+				}
+				catch(IOException e) {
+					throw new IllegalArgumentException("Unable to load file.");
+				}
+			}
+			int mid = (lo + hi) >>> 1;
+			ChunkTask right = new ChunkTask(channel, bounds, mid, hi, reviewers);
+			right.fork();
+			ArrayList<Application> apps = new ChunkTask(channel, bounds, lo, mid, reviewers).compute();
+			apps.addAll(right.join());
+			return apps;
+		}
+	}
+}
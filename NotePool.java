@@ -0,0 +1,32 @@
+package edu.ncsu.csc216.app_manager.model.application;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * NotePool keeps one copy of each distinct note text, so that the many applications
+ * with the same boilerplate note, such as "Candidate rejected", share a single String.
+ * Texts are only ever added, and the pool can be used from several threads at once.
+ */
+public final class NotePool {
+
+	/** Each distinct text, mapped to itself */
+	private final ConcurrentHashMap<String, String> texts = new ConcurrentHashMap<String, String>();
+
+	/**
+	 * Returns the pooled copy of a text, adding the text if it is new
+	 * @param text to look up
+	 * @return a String equal to the text that is shared by every caller
+	 */
+	public String intern(String text) {
+		String pooled = texts.putIfAbsent(text, text);
+		return pooled == null ? text : pooled;
+	}
+
+	/**
+	 * Returns the number of distinct texts in the pool
+	 * @return the number of texts
+	 */
+	public int size() {
+		return texts.size();
+	}
+}
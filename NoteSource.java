@@ -0,0 +1,20 @@
+package edu.ncsu.csc216.app_manager.model.application;
+
+import java.util.List;
+
+/**
+ * NoteSource reads the notes of applications whose notes were left out when they were
+ * loaded. Each application remembers where its notes are in the source, and asks for
+ * them only when they are needed.
+ */
+public interface NoteSource {
+
+	/**
+	 * Reads the notes stored at a position in the source. The list must not be changed.
+	 * @param offset of the notes in the source
+	 * @param length of the notes in the source
+	 * @return the notes, including their state prefixes, oldest first
+	 * @throws IllegalArgumentException if the notes cannot be read
+	 */
+	List<String> readNotes(long offset, int length);
+}
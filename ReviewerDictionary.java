@@ -0,0 +1,102 @@
+package edu.ncsu.csc216.app_manager.model.application;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ReviewerDictionary gives each distinct reviewer id a small int code and keeps one
+ * canonical String for it, so that the thousands of applications assigned to the same
+ * handful of reviewers share one String and can be grouped and compared by code.
+ * Code 0 stands for no reviewer. Codes are only ever added, and the dictionary can be
+ * used from several threads at once.
+ */
+public final class ReviewerDictionary {
+
+	/** Code for no reviewer */
+	public static final int NONE = 0;
+
+	/** Codes by reviewer id */
+	private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<String, Integer>();
+
+	/** Canonical reviewer ids, indexed by code */
+	private volatile String[] ids = new String[16];
+
+	/** Number of codes given out, including NONE */
+	private int size = 1;
+
+	/**
+	 * Returns the code of a reviewer id, adding the id if it is new
+	 * @param reviewer id of the reviewer, or null
+	 * @return the code of the reviewer, or NONE for null
+	 */
+	public int code(String reviewer) {
+		if(reviewer == null) {
+			return NONE;
+		}
+		Integer code = codes.get(reviewer);
+		return code != null ? code : add(reviewer);
+	}
+
+	/**
+	 * Returns the code of a reviewer id without adding it
+	 * @param reviewer id of the reviewer, or null
+	 * @return the code of the reviewer, NONE for null, or -1 if the id has no code
+	 */
+	public int find(String reviewer) {
+		if(reviewer == null) {
+			return NONE;
+		}
+		Integer code = codes.get(reviewer);
+		return code != null ? code : -1;
+	}
+
+	/**
+	 * Returns the canonical String for a reviewer id, adding the id if it is new
+	 * @param reviewer id of the reviewer, or null
+	 * @return the canonical String equal to the id, or null
+	 */
+	public String canonical(String reviewer) {
+		return reviewer == null ? null : get(code(reviewer));
+	}
+
+	/**
+	 * Returns the reviewer id for a code
+	 * @param code of the reviewer
+	 * @return the canonical reviewer id, or null for NONE
+	 * @throws IllegalArgumentException if the code has not been given out
+	 */
+	public String get(int code) {
+		String[] current = ids;
+		if(code < 0 || code >= current.length || (code != NONE && current[code] == null)) {
+			throw new IllegalArgumentException("Invalid reviewer.");
+		}
+		return current[code];
+	}
+
+	/**
+	 * Returns the number of codes given out, including NONE, so every code is less than it
+	 * @return the number of codes
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Gives a new reviewer id the next code, unless another thread has just added it
+	 * @param reviewer id of the reviewer
+	 * @return the code of the reviewer
+	 */
+	private synchronized int add(String reviewer) {
+		Integer code = codes.get(reviewer);
+		if(code != null) {
+			return code;
+		}
+		if(size == ids.length) {
+			ids = Arrays.copyOf(ids, size * 2);
+		}
+		ids[size] = reviewer;
+		//the id is stored before its code is published, so a thread that finds the code can read the id
+		codes.put(reviewer, size);
+		return size++;
+	}
+}
@@ -0,0 +1,172 @@
+package edu.ncsu.csc216.app_manager.model.io;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import edu.ncsu.csc216.app_manager.model.application.Application;
+import edu.ncsu.csc216.app_manager.model.application.Application.AppType;
+import edu.ncsu.csc216.app_manager.model.command.Command;
+import edu.ncsu.csc216.app_manager.model.command.Command.Resolution;
+
+/**
+ * SnapshotFormat holds the constants and encoding helpers shared by the binary
+ * snapshot writer and reader.
+ *
+ * A snapshot starts with the magic number, a version byte, the sequence number of the
+ * last journal record it covers and the record count. Version 1 snapshots have no
+ * sequence number. Version 3 snapshots end with the CRC32 of everything before it, and
+ * because their contents are known to have been written by AppWriter from valid
+ * applications, they are read back without revalidating each application.
+ *
+ * Each record holds the application id, one byte each for the state, type and
+ * resolution codes, a flags byte, and length-prefixed UTF-8 strings for the summary,
+ * the reviewer (if present) and each note.
+ */
+final class SnapshotFormat {
+
+	/** Magic number at the start of every snapshot ("PKHS") */
+	static final int MAGIC = 0x504B4853;
+
+	/** Current version of the snapshot format, ending with a checksum */
+	static final byte VERSION = 3;
+	
+	/** Second version of the snapshot format, without a checksum */
+	static final byte VERSION_2 = 2;
+
+	/** First version of the snapshot format, without a journal sequence number */
+	static final byte VERSION_1 = 1;
+
+	/** Flag bit set when the paperwork of the application is processed */
+	static final int FLAG_PROCESSED = 1;
+
+	/** Flag bit set when the application has a reviewer */
+	static final int FLAG_REVIEWER = 1 << 1;
+
+	/** Code written when an application has no resolution */
+	static final byte NO_RESOLUTION = -1;
+
+	/** State names, indexed by state code */
+	static final String[] STATES = { Application.REVIEW_NAME, Application.INTERVIEW_NAME, Application.REFCHK_NAME,
+			Application.OFFER_NAME, Application.WAITLIST_NAME, Application.CLOSED_NAME };
+
+	/** Application types, indexed by type code */
+	static final String[] TYPES = { Application.A_NEW, Application.A_OLD, Application.A_HIRED };
+
+	/** Resolutions, indexed by resolution code */
+	static final String[] RESOLUTIONS = { Command.R_REVCOMPLETED, Command.R_INTCOMPLETED, Command.R_REFCHKCOMPLETED,
+			Command.R_OFFERCOMPLETED };
+	
+	/** Application types as enumeration values, indexed by type code */
+	static final AppType[] TYPE_VALUES = { AppType.NEW, AppType.OLD, AppType.HIRED };
+	
+	/** Resolutions as enumeration values, indexed by resolution code */
+	static final Resolution[] RESOLUTION_VALUES = { Resolution.REVCOMPLETED, Resolution.INTCOMPLETED, 
+			Resolution.REFCHKCOMPLETED, Resolution.OFFERCOMPLETED };
+
+	/**
+	 * SnapshotFormat only has static members
+	 */
+	private SnapshotFormat() {
+	}
+
+	/**
+	 * Returns the code of a name in the given table
+	 * @param table of names
+	 * @param name to look up
+	 * @return the index of the name in the table
+	 * @throws IllegalArgumentException if the name is not in the table
+	 */
+	static byte encode(String[] table, String name) {
+		for(int i = 0; i < table.length; i++) {
+			if(table[i].equals(name)) {
+				return (byte) i;
+			}
+		}
+		throw new IllegalArgumentException("Invalid application data.");
+	}
+
+	/**
+	 * Returns the value for a code in the given table
+	 * @param <T> type of the values in the table
+	 * @param table of values
+	 * @param code to look up
+	 * @return the value at the code
+	 * @throws IllegalArgumentException if the code is out of range
+	 */
+	static <T> T decode(T[] table, byte code) {
+		if(code < 0 || code >= table.length) {
+			throw new IllegalArgumentException("Invalid application data.");
+		}
+		return table[code];
+	}
+
+	/**
+	 * Writes a non-negative int using 7 bits per byte
+	 * @param out output to write to
+	 * @param value to write
+	 * @throws IOException if the output cannot be written
+	 */
+	static void writeVarInt(DataOutput out, int value) throws IOException {
+		while((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	/**
+	 * Reads a non-negative int written by writeVarInt
+	 * @param in input to read from
+	 * @return the value read
+	 * @throws IOException if the input cannot be read or the value is malformed
+	 * @throws IllegalArgumentException if the value is negative
+	 */
+	static int readVarInt(DataInput in) throws IOException {
+		int value = 0;
+		for(int shift = 0; shift < 32; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			if((b & 0x80) == 0) {
+				if(value < 0) {
+					throw new IllegalArgumentException("Invalid application data.");
+				}
+				return value;
+			}
+		}
+		throw new IOException("Malformed length");
+	}
+
+	/**
+	 * Writes a string as its UTF-8 length followed by its UTF-8 bytes
+	 * @param out output to write to
+	 * @param s string to write
+	 * @throws IOException if the output cannot be written
+	 */
+	static void writeString(DataOutput out, String s) throws IOException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		writeVarInt(out, bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Reads a string written by writeString. The length is checked against the bytes
+	 * left in the input, which for a snapshot file is the rest of the file, so a corrupt
+	 * length is rejected before its array is allocated.
+	 * @param in input to read from
+	 * @return the string read
+	 * @throws IOException if the input cannot be read
+	 * @throws IllegalArgumentException if the length is longer than the rest of the input
+	 */
+	static String readString(DataInputStream in) throws IOException {
+		int length = readVarInt(in);
+		if(length > in.available()) {
+			throw new IllegalArgumentException("Invalid application data.");
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,129 @@
+package edu.ncsu.csc216.app_manager.model.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ncsu.csc216.app_manager.model.application.Application.AppType;
+
+/**
+ * Tests the AppJournal class
+ */
+public class AppJournalTest {
+
+	/**
+	 * Tests that records are replayed in order after the journal is reopened
+	 * @throws IOException if the temporary directory cannot be used
+	 */
+	@Test
+	public void testReplay() throws IOException {
+		Path dir = Files.createTempDirectory("journal");
+		String fileName = dir.resolve("apps.jnl").toString();
+		try {
+			AppJournal journal = new AppJournal(fileName, 1);
+			journal.appendAdd(1, AppType.NEW, "summary", "note");
+			journal.appendDelete(1);
+			assertEquals(2, journal.getSequence());
+			journal.close();
+
+			AppJournal reopened = new AppJournal(fileName, 1);
+			assertEquals(2, reopened.getRecordCount());
+			assertEquals(List.of(1, 1), replayedIds(reopened));
+			reopened.close();
+		}
+		finally {
+			delete(dir);
+		}
+	}
+
+	/**
+	 * Tests that records written before and after a rotation are both replayed until the
+	 * rotated file is discarded
+	 * @throws IOException if the temporary directory cannot be used
+	 */
+	@Test
+	public void testRotate() throws IOException {
+		Path dir = Files.createTempDirectory("journal");
+		String fileName = dir.resolve("apps.jnl").toString();
+		try {
+			AppJournal journal = new AppJournal(fileName, 1);
+			journal.appendAdd(1, AppType.NEW, "summary", "note");
+			assertTrue(journal.rotate());
+			assertFalse(journal.rotate());
+			journal.appendAdd(2, AppType.OLD, "summary", "note");
+			assertEquals(1, journal.getRecordCount());
+			assertEquals(List.of(1, 2), replayedIds(journal));
+
+			journal.discardRotated();
+			assertEquals(List.of(2), replayedIds(journal));
+			journal.close();
+		}
+		finally {
+			delete(dir);
+		}
+	}
+
+	/**
+	 * Tests that a journal whose rotation fails because the file cannot be moved keeps
+	 * appending to its current file. The journal file name is as long as a file name can
+	 * be, so the name of the rotated file is too long and the move fails.
+	 * @throws IOException if the temporary directory cannot be used
+	 */
+	@Test
+	public void testRotateMoveFails() throws IOException {
+		Path dir = Files.createTempDirectory("journal");
+		String fileName = dir.resolve("j".repeat(252)).toString();
+		try {
+			AppJournal journal = new AppJournal(fileName, 1);
+			journal.appendAdd(1, AppType.NEW, "summary", "note");
+			assertThrows(IllegalArgumentException.class, () -> journal.rotate());
+
+			journal.appendAdd(2, AppType.NEW, "summary", "note");
+			assertEquals(2, journal.getRecordCount());
+			assertEquals(List.of(1, 2), replayedIds(journal));
+			journal.close();
+
+			AppJournal reopened = new AppJournal(fileName, 1);
+			assertEquals(List.of(1, 2), replayedIds(reopened));
+			reopened.close();
+		}
+		finally {
+			delete(dir);
+		}
+	}
+
+	/**
+	 * Returns the application ids of every record in a journal, in order
+	 * @param journal to replay
+	 * @return the ids of the records
+	 */
+	private static List<Integer> replayedIds(AppJournal journal) {
+		ArrayList<Integer> ids = new ArrayList<Integer>();
+		journal.replay(0, entry -> ids.add(entry.getAppId()));
+		return ids;
+	}
+
+	/**
+	 * Deletes a temporary directory and the files in it
+	 * @param dir directory to delete
+	 * @throws IOException if a file cannot be deleted
+	 */
+	private static void delete(Path dir) throws IOException {
+		try(DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+			for(Path file : files) {
+				Files.delete(file);
+			}
+		}
+		Files.delete(dir);
+	}
+}
@@ -0,0 +1,309 @@
+package edu.ncsu.csc216.app_manager.model.application;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ncsu.csc216.app_manager.model.application.Application.AppType;
+import edu.ncsu.csc216.app_manager.model.command.Command;
+import edu.ncsu.csc216.app_manager.model.command.Command.CommandValue;
+import edu.ncsu.csc216.app_manager.model.command.Command.Resolution;
+
+/**
+ * Tests the transition table of Application against the state classes it replaced.
+ * Every state, type, resolution, reviewer and paperwork flag of an application is 
+ * paired with every command that can be constructed, and each pair is applied both to
+ * an Application and to Reference, a copy of the updateState methods of the old state
+ * classes. The outcome, the exception thrown, toString and the reviewer must all be
+ * the same.
+ */
+public class ApplicationTransitionTest {
+
+	/** State names an application can be in */
+	private static final String[] STATES = { Application.REVIEW_NAME, Application.INTERVIEW_NAME,
+			Application.REFCHK_NAME, Application.OFFER_NAME, Application.WAITLIST_NAME, Application.CLOSED_NAME };
+
+	/** Reviewers of an application or a command: none, empty and set */
+	private static final String[] REVIEWERS = { null, "", "reviewer" };
+
+	/** Resolutions of an application or a command, including none */
+	private static final Resolution[] RESOLUTIONS = { null, Resolution.REVCOMPLETED, Resolution.INTCOMPLETED,
+			Resolution.REFCHKCOMPLETED, Resolution.OFFERCOMPLETED };
+
+	/** Summary of every application checked */
+	private static final String SUMMARY = "summary";
+
+	/** Note that every application checked starts with */
+	private static final String NOTE = "[Review] note";
+
+	/**
+	 * Tests that every transition matches the state classes
+	 */
+	@Test
+	public void testTransitionsMatchStateClasses() {
+		for(String state : STATES) {
+			for(AppType type : AppType.values()) {
+				for(Resolution resolution : RESOLUTIONS) {
+					for(String reviewer : REVIEWERS) {
+						for(boolean processed : new boolean[] { false, true }) {
+							for(CommandValue value : CommandValue.values()) {
+								for(String commandReviewer : REVIEWERS) {
+									for(Resolution commandResolution : RESOLUTIONS) {
+										if(!isValidCommand(value, commandReviewer, commandResolution)) {
+											continue;
+										}
+										Command c = new Command(value, commandReviewer, commandResolution, "command");
+										ArrayList<String> notes = new ArrayList<String>();
+										notes.add(NOTE);
+										Application a = Application.fromTrusted(1, state, type, SUMMARY, reviewer, processed, resolution, notes);
+										Reference r = new Reference(state, type, resolution, reviewer, processed);
+										assertEquals(apply(r, c), apply(a, c), state + " " + type + " " + resolution + " " + reviewer + " "
+												+ processed + " on " + value + " " + commandReviewer + " " + commandResolution);
+									}
+								}
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns true if the Command constructor accepts the given values
+	 * @param value of the command
+	 * @param reviewer of the command
+	 * @param resolution of the command
+	 * @return true if the command can be constructed
+	 */
+	private static boolean isValidCommand(CommandValue value, String reviewer, Resolution resolution) {
+		if(value == CommandValue.ACCEPT && (reviewer == null || reviewer.isEmpty())) {
+			return false;
+		}
+		return resolution != null || (value != CommandValue.REJECT && value != CommandValue.STANDBY);
+	}
+
+	/**
+	 * Applies a command to an Application
+	 * @param a application to update
+	 * @param c command to apply
+	 * @return the outcome, toString and reviewer of the application afterwards
+	 */
+	private static String apply(Application a, Command c) {
+		String outcome = "ok";
+		try {
+			a.update(c);
+		}
+		catch(RuntimeException e) {
+			outcome = e.getClass().getSimpleName() + ": " + e.getMessage();
+		}
+		return outcome + "|" + a.toString() + "|" + a.getReviewer();
+	}
+
+	/**
+	 * Applies a command to a Reference
+	 * @param r reference to update
+	 * @param c command to apply
+	 * @return the outcome, toString and reviewer of the reference afterwards
+	 */
+	private static String apply(Reference r, Command c) {
+		String outcome = "ok";
+		try {
+			r.update(c);
+		}
+		catch(RuntimeException e) {
+			outcome = e.getClass().getSimpleName() + ": " + e.getMessage();
+		}
+		return outcome + "|" + r.toString() + "|" + r.reviewer;
+	}
+
+	/**
+	 * The fields of an application and the updateState methods of the state classes that
+	 * Application used before its transition table, kept as they were so the table can
+	 * be checked against them.
+	 */
+	private static class Reference {
+
+		/** Name of the state */
+		private String state;
+
+		/** Type of application */
+		private AppType appType;
+
+		/** Resolution of the application */
+		private Resolution resolution;
+
+		/** User id of the application reviewer */
+		private String reviewer;
+
+		/** True if the paperwork is processed */
+		private boolean processPaperwork;
+
+		/** Notes on the application, with their state prefixes */
+		private final ArrayList<String> notes = new ArrayList<String>();
+
+		/**
+		 * Constructs a Reference with the given fields and the note every application
+		 * checked starts with
+		 * @param state name of the state
+		 * @param appType of application
+		 * @param resolution of application
+		 * @param reviewer of application
+		 * @param processPaperwork true if the paperwork is processed
+		 */
+		Reference(String state, AppType appType, Resolution resolution, String reviewer, boolean processPaperwork) {
+			this.state = state;
+			this.appType = appType;
+			this.resolution = resolution;
+			this.reviewer = reviewer;
+			this.processPaperwork = processPaperwork;
+			notes.add(NOTE);
+		}
+
+		/**
+		 * Updates the reference with the given command as the state classes did
+		 * @param c command to apply
+		 * @throws UnsupportedOperationException if the command is not appropriate for the current state
+		 */
+		void update(Command c) {
+			boolean hasReviewer = c.getReviewerId() != null && !c.getReviewerId().isEmpty();
+			CommandValue value = c.getCommand();
+			switch(state) {
+				case Application.REVIEW_NAME:
+					if(value == CommandValue.ACCEPT && hasReviewer) {
+						reviewer = c.getReviewerId();
+						state = Application.INTERVIEW_NAME;
+						appType = AppType.OLD;
+					}
+					else if(value == CommandValue.STANDBY && appType != AppType.OLD) {
+						resolution = Resolution.REVCOMPLETED;
+						reviewer = c.getReviewerId();
+						state = Application.WAITLIST_NAME;
+					}
+					else if(value == CommandValue.REJECT) {
+						resolution = Resolution.REVCOMPLETED;
+						state = Application.CLOSED_NAME;
+						reviewer = c.getReviewerId();
+					}
+					else {
+						throw new UnsupportedOperationException("Invalid information.");
+					}
+					break;
+				case Application.INTERVIEW_NAME:
+					if(value == CommandValue.ACCEPT && hasReviewer) {
+						setReviewer(c.getReviewerId());
+						state = Application.REFCHK_NAME;
+						processPaperwork = true;
+					}
+					else if(value == CommandValue.STANDBY) {
+						reviewer = c.getReviewerId();
+						resolution = Resolution.INTCOMPLETED;
+						state = Application.WAITLIST_NAME;
+					}
+					else if(value == CommandValue.REJECT) {
+						resolution = Resolution.INTCOMPLETED;
+						reviewer = c.getReviewerId();
+						state = Application.CLOSED_NAME;
+					}
+					else {
+						throw new UnsupportedOperationException("Invalid information.");
+					}
+					break;
+				case Application.REFCHK_NAME:
+					if(hasReviewer && value == CommandValue.ACCEPT) {
+						resolution = Resolution.REFCHKCOMPLETED;
+						processPaperwork = true;
+						reviewer = c.getReviewerId();
+						state = Application.OFFER_NAME;
+						resolution = null;
+					}
+					else if(value == CommandValue.REJECT) {
+						resolution = Resolution.REFCHKCOMPLETED;
+						setReviewer(c.getReviewerId());
+						state = Application.CLOSED_NAME;
+					}
+					else {
+						throw new UnsupportedOperationException("Invalid information.");
+					}
+					break;
+				case Application.OFFER_NAME:
+					if(hasReviewer && value == CommandValue.ACCEPT) {
+						resolution = Resolution.OFFERCOMPLETED;
+						processPaperwork = true;
+						appType = AppType.HIRED;
+						state = Application.CLOSED_NAME;
+					}
+					else if(value == CommandValue.REJECT) {
+						resolution = Resolution.OFFERCOMPLETED;
+						reviewer = null;
+						state = Application.CLOSED_NAME;
+					}
+					else {
+						throw new UnsupportedOperationException("Invalid information.");
+					}
+					break;
+				case Application.WAITLIST_NAME:
+					if(resolution == Resolution.INTCOMPLETED && hasReviewer && value == CommandValue.REOPEN) {
+						processPaperwork = true;
+						state = Application.REFCHK_NAME;
+						resolution = null;
+						setReviewer(c.getReviewerId());
+					}
+					else if(resolution == Resolution.REVCOMPLETED && appType == AppType.NEW && value == CommandValue.REOPEN) {
+						appType = AppType.OLD;
+						state = Application.REVIEW_NAME;
+						resolution = null;
+						processPaperwork = false;
+						reviewer = c.getReviewerId();
+					}
+					else {
+						throw new UnsupportedOperationException("Invalid information.");
+					}
+					break;
+				default:
+					if(value != CommandValue.REOPEN) {
+						throw new UnsupportedOperationException("Invalid information.");
+					}
+					if(appType == AppType.NEW && resolution == Resolution.REVCOMPLETED) {
+						appType = AppType.OLD;
+						state = Application.REVIEW_NAME;
+						resolution = null;
+					}
+					else if(appType == AppType.OLD || resolution == Resolution.REVCOMPLETED) {
+						throw new UnsupportedOperationException("Invalid information.");
+					}
+					break;
+			}
+			notes.add("[" + state + "] " + c.getNote());
+		}
+
+		/**
+		 * Sets the reviewer, storing an empty reviewer as null
+		 * @param reviewerId of the reviewer
+		 */
+		private void setReviewer(String reviewerId) {
+			reviewer = "".equals(reviewerId) ? null : reviewerId;
+		}
+
+		/**
+		 * Returns the reference in the format of Application.toString
+		 * @return the reference as a string
+		 */
+		@Override
+		public String toString() {
+			String[] types = { Application.A_NEW, Application.A_OLD, Application.A_HIRED };
+			String[] resolutions = { "", Command.R_REVCOMPLETED, Command.R_INTCOMPLETED, Command.R_REFCHKCOMPLETED,
+					Command.R_OFFERCOMPLETED };
+			StringBuilder sb = new StringBuilder();
+			sb.append('*').append(1).append(',').append(state).append(',').append(types[appType.ordinal()]).append(',')
+					.append(SUMMARY).append(',').append(reviewer).append(',').append(processPaperwork).append(',')
+					.append(resolutions[resolution == null ? 0 : resolution.ordinal() + 1]).append('\n');
+			for(String note : notes) {
+				sb.append('-').append(note).append('\n');
+			}
+			return sb.toString();
+		}
+	}
+}